@@ -0,0 +1,89 @@
+package findnest.service;
+
+import com.google.firebase.database.utilities.encoding.CustomClassMapper;
+import findnest.model.ItemCounts;
+import findnest.model.Items;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Whole-collection work behind the list and count endpoints: the snapshot scans the service
+ * used to do on every request against the cache and counters that replace them.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class ItemAggregationBenchmark {
+
+    @Param({"1000", "10000", "100000"})
+    private int itemCount;
+
+    private Map<String, Object> rawItems;
+    private ItemCache itemCache;
+    private ItemCounters itemCounters;
+
+    @Setup
+    public void setUp() {
+        rawItems = SyntheticItems.rawItems(itemCount);
+        itemCounters = new ItemCounters();
+        itemCache = new ItemCache(List.of(itemCounters));
+        itemCache.reset(SyntheticItems.items(itemCount));
+    }
+
+    // getAllItems before the cache: deserialize every child of the snapshot
+    @Benchmark
+    public List<Items> materializeFromSnapshot() {
+        List<Items> itemsList = new ArrayList<>();
+        for (Object child : rawItems.values()) {
+            itemsList.add(CustomClassMapper.convertToCustomClass(child, Items.class));
+        }
+        return itemsList;
+    }
+
+    @Benchmark
+    public List<Items> materializeFromCache() {
+        return itemCache.getAll();
+    }
+
+    // countAllItems before the counters: read the status of every child
+    @Benchmark
+    public Items countBySnapshotScan() {
+        Items itemCounts = new Items();
+        itemCounts.setTotalCount(rawItems.size());
+        long availableCount = 0;
+        long claimedCount = 0;
+        for (Object child : rawItems.values()) {
+            Object status = ((Map<?, ?>) child).get("status");
+            if ("Available".equals(status)) {
+                availableCount++;
+            } else if ("Claimed".equals(status)) {
+                claimedCount++;
+            }
+        }
+        itemCounts.setAvailableCount(availableCount);
+        itemCounts.setClaimedCount(claimedCount);
+        return itemCounts;
+    }
+
+    @Benchmark
+    public Items countFromCounters() {
+        return itemCounters.getStatusCounts();
+    }
+
+    @Benchmark
+    public ItemCounts breakdownFromCounters() {
+        return itemCounters.getCounts();
+    }
+}
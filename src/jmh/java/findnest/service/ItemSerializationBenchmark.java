@@ -0,0 +1,61 @@
+package findnest.service;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.google.firebase.database.utilities.encoding.CustomClassMapper;
+import findnest.model.Items;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Cost of turning one raw item into {@link Items} the way {@code DataSnapshot.getValue(Items.class)}
+ * does, and of the Jackson round-trip used for responses.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+public class ItemSerializationBenchmark {
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+    private Map<String, Object> rawItem;
+    private Items item;
+    private byte[] json;
+
+    @Setup
+    public void setUp() throws JsonProcessingException {
+        rawItem = SyntheticItems.rawItem(42);
+        item = SyntheticItems.item(42);
+        json = objectMapper.writeValueAsBytes(item);
+    }
+
+    // What DataSnapshot.getValue(Items.class) does with the raw child value
+    @Benchmark
+    public Items firebaseDeserialize() {
+        return CustomClassMapper.convertToCustomClass(rawItem, Items.class);
+    }
+
+    // What setValueAsync(item) does before sending
+    @Benchmark
+    public Object firebaseSerialize() {
+        return CustomClassMapper.convertToPlainJavaTypes(item);
+    }
+
+    @Benchmark
+    public byte[] jacksonSerialize() throws JsonProcessingException {
+        return objectMapper.writeValueAsBytes(item);
+    }
+
+    @Benchmark
+    public Items jacksonDeserialize() throws Exception {
+        return objectMapper.readValue(json, Items.class);
+    }
+}
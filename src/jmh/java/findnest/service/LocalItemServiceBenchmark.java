@@ -0,0 +1,102 @@
+package findnest.service;
+
+import findnest.model.Items;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Comparator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Stream;
+
+/**
+ * The full service layer running on the embedded local storage backend, so service overhead
+ * can be measured without network latency.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class LocalItemServiceBenchmark {
+
+    @Param({"1000", "10000"})
+    private int itemCount;
+
+    private Path directory;
+    private LocalStorageBackend storage;
+    private ExecutorService executor;
+    private ItemServiceImpl itemService;
+    private String existingId;
+
+    @Setup(Level.Trial)
+    public void setUp() throws IOException {
+        directory = Files.createTempDirectory("findnest-bench");
+        storage = new LocalStorageBackend(directory.toString(), 100_000);
+        Map<String, Items> items = SyntheticItems.items(itemCount);
+        storage.update("", prefixed(items)).join();
+        existingId = SyntheticItems.key(itemCount / 2);
+
+        ItemCounters itemCounters = new ItemCounters();
+        ItemIndex itemIndex = new ItemIndex();
+        ItemSearchIndex itemSearchIndex = new ItemSearchIndex();
+        ItemAnalytics itemAnalytics = new ItemAnalytics();
+        ItemCache itemCache = new ItemCache(List.of(itemCounters, itemIndex, itemSearchIndex, itemAnalytics));
+        executor = Executors.newFixedThreadPool(4);
+        LocalImageStore imageStore = new LocalImageStore(directory.resolve("images").toString(), "http://localhost:8080/images",
+                directory.resolve("objects").toString());
+        HistoryArchive historyArchive = new HistoryArchive(imageStore, 90, 4, 60_000, executor);
+        itemService = new ItemServiceImpl(storage, itemCache, itemCounters, itemIndex, itemSearchIndex, historyArchive, itemAnalytics,
+                executor, new ThreadingMetrics(false, new SimpleMeterRegistry()), 10_000);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws IOException {
+        executor.shutdown();
+        storage.close();
+        try (Stream<Path> files = Files.walk(directory)) {
+            files.sorted(Comparator.reverseOrder()).forEach(path -> path.toFile().delete());
+        }
+    }
+
+    @Benchmark
+    public Items getItemById() {
+        return itemService.getItemById(existingId);
+    }
+
+    @Benchmark
+    public Items saveItem() {
+        return itemService.saveItemAsync(SyntheticItems.item(0)).join();
+    }
+
+    @Benchmark
+    public Items countAllItems() {
+        return itemService.countAllItems();
+    }
+
+    @Benchmark
+    public List<Items> searchItems() {
+        return itemService.searchItemsAsync("black umbrella library", 20).join();
+    }
+
+    private static Map<String, Object> prefixed(Map<String, Items> items) {
+        Map<String, Object> values = new LinkedHashMap<>();
+        items.forEach((key, item) -> values.put("items/" + key, item));
+        return values;
+    }
+}
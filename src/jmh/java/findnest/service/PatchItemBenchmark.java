@@ -0,0 +1,42 @@
+package findnest.service;
+
+import findnest.model.Items;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * The field-application and change-detection switch the claim path runs for every claim.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+public class PatchItemBenchmark {
+
+    private Items template;
+    private Map<String, Object> updates;
+
+    @Setup
+    public void setUp() {
+        template = SyntheticItems.item(1);
+        updates = Map.of(
+                "claimantName", "Juan Dela Cruz",
+                "claimantImage", "https://example.com/claimant.jpg",
+                "userRef", "user7",
+                "staffInvolved", "Staff 2");
+    }
+
+    @Benchmark
+    public Map<String, Object> applyClaim() {
+        Items item = template.toBuilder().build();
+        return ItemServiceImpl.applyClaim(item, updates);
+    }
+}
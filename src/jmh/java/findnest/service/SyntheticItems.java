@@ -0,0 +1,70 @@
+package findnest.service;
+
+import com.google.firebase.database.utilities.encoding.CustomClassMapper;
+import findnest.model.Items;
+
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Synthetic item data shaped like the raw values Firebase hands to {@code DataSnapshot.getValue}.
+ */
+final class SyntheticItems {
+
+    private static final String[] CATEGORIES = {"Electronics", "Clothing", "Accessories", "Documents", "Others"};
+    private static final String[] LOCATIONS = {"Library", "Canteen", "Gym", "Chapel", "Parking Lot"};
+    private static final String[] DEPARTMENTS = {"CCS", "CEA", "CASE", "CMBA", "CNAHS"};
+
+    private SyntheticItems() {
+    }
+
+    static String key(int i) {
+        return String.format("-Nsynthetic%08d", i);
+    }
+
+    // Raw value of one child of the items node
+    static Map<String, Object> rawItem(int i) {
+        Map<String, Object> raw = new HashMap<>();
+        raw.put("id", key(i));
+        raw.put("userRef", "user" + (i % 97));
+        raw.put("item", "Black umbrella " + i);
+        raw.put("dateFound", "2024-10-" + String.format("%02d", 1 + i % 28));
+        raw.put("location", LOCATIONS[i % LOCATIONS.length]);
+        raw.put("description", "Folding umbrella with a wooden handle, left near the entrance");
+        raw.put("imageUrls", List.of("https://firebasestorage.googleapis.com/v0/b/findnest/o/items%2F" + i + ".jpg"));
+        raw.put("category", CATEGORIES[i % CATEGORIES.length]);
+        raw.put("status", i % 3 == 0 ? "Claimed" : "Available");
+        raw.put("department", DEPARTMENTS[i % DEPARTMENTS.length]);
+        raw.put("createdAt", "2024-10-01T08:00:00Z");
+        raw.put("updatedAt", "2024-10-02T08:00:00Z");
+        raw.put("foundByName", "Student " + (i % 50));
+        raw.put("staffInvolved", "Staff " + (i % 5));
+        raw.put("totalCount", 0L);
+        raw.put("availableCount", 0L);
+        raw.put("claimedCount", 0L);
+        return raw;
+    }
+
+    // Raw value of the whole items node, in key order
+    static Map<String, Object> rawItems(int count) {
+        Map<String, Object> raw = new LinkedHashMap<>();
+        for (int i = 0; i < count; i++) {
+            raw.put(key(i), rawItem(i));
+        }
+        return raw;
+    }
+
+    static Items item(int i) {
+        return CustomClassMapper.convertToCustomClass(rawItem(i), Items.class);
+    }
+
+    static Map<String, Items> items(int count) {
+        Map<String, Items> items = new LinkedHashMap<>();
+        for (int i = 0; i < count; i++) {
+            items.put(key(i), item(i));
+        }
+        return items;
+    }
+}
@@ -0,0 +1,64 @@
+package findnest.config;
+
+import findnest.model.VerifiedToken;
+import findnest.service.TokenVerificationException;
+import findnest.service.TokenVerifier;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpHeaders;
+import org.springframework.stereotype.Component;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+import java.io.IOException;
+
+/**
+ * Verifies the bearer ID token on API requests and exposes it to handlers as the
+ * {@link #TOKEN_ATTRIBUTE} request attribute.
+ *
+ * Requests without a valid token are only rejected when findnest.auth.enforce is set;
+ * otherwise they pass through unauthenticated, as they did before the filter existed.
+ */
+@Component
+public class FirebaseAuthFilter extends OncePerRequestFilter {
+
+    public static final String TOKEN_ATTRIBUTE = "findnest.auth.token";
+
+    private final TokenVerifier tokenVerifier;
+    private final boolean enforce;
+
+    public FirebaseAuthFilter(TokenVerifier tokenVerifier, @Value("${findnest.auth.enforce:false}") boolean enforce) {
+        this.tokenVerifier = tokenVerifier;
+        this.enforce = enforce;
+    }
+
+    @Override
+    protected boolean shouldNotFilter(HttpServletRequest request) {
+        // CORS preflights carry no credentials
+        return "OPTIONS".equalsIgnoreCase(request.getMethod()) || !request.getRequestURI().startsWith("/api/");
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain chain)
+            throws ServletException, IOException {
+        String header = request.getHeader(HttpHeaders.AUTHORIZATION);
+        if (header != null && header.startsWith("Bearer ")) {
+            try {
+                VerifiedToken token = tokenVerifier.verify(header.substring("Bearer ".length()).trim());
+                request.setAttribute(TOKEN_ATTRIBUTE, token);
+            } catch (TokenVerificationException e) {
+                if (enforce) {
+                    response.sendError(HttpServletResponse.SC_UNAUTHORIZED, e.getMessage());
+                    return;
+                }
+            }
+        } else if (enforce) {
+            response.sendError(HttpServletResponse.SC_UNAUTHORIZED, "Missing bearer token");
+            return;
+        }
+        chain.doFilter(request, response);
+    }
+}
@@ -0,0 +1,82 @@
+package findnest.config;
+
+import findnest.service.HistoryArchive;
+import findnest.service.InstrumentedStorageBackend;
+import findnest.service.ItemCache;
+import findnest.service.ItemEventBroadcaster;
+import findnest.service.StorageBackend;
+import findnest.service.ThumbnailService;
+import findnest.service.TokenVerifier;
+import findnest.service.UserCache;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.beans.factory.config.BeanPostProcessor;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+// Micrometer meters, served by the actuator at /actuator/prometheus
+@Configuration
+public class MetricsConfig {
+
+    // Wraps whichever storage backend is active, so every read and write is timed without the services knowing
+    @Bean
+    public static BeanPostProcessor storageMetricsPostProcessor(ObjectProvider<MeterRegistry> registry,
+            @Value("${findnest.metrics.payload-sample-rate:0.01}") double payloadSampleRate) {
+        return new BeanPostProcessor() {
+            @Override
+            public Object postProcessAfterInitialization(Object bean, String beanName) {
+                if (bean instanceof StorageBackend storage && !(bean instanceof InstrumentedStorageBackend)) {
+                    return new InstrumentedStorageBackend(storage, registry.getObject(), payloadSampleRate);
+                }
+                return bean;
+            }
+        };
+    }
+
+    // The statistics already served under /api/system, published as meters
+    @Bean
+    public MeterBinder cacheMetrics(ItemCache itemCache, UserCache userCache, TokenVerifier tokenVerifier,
+                                    ItemEventBroadcaster itemEventBroadcaster, ThumbnailService thumbnailService,
+                                    HistoryArchive historyArchive) {
+        return registry -> {
+            Gauge.builder("findnest.items.cached", itemCache, ItemCache::size).register(registry);
+            Gauge.builder("findnest.items.stream.clients", itemEventBroadcaster, ItemEventBroadcaster::getClientCount)
+                    .register(registry);
+            FunctionCounter.builder("findnest.items.stream.resyncs", itemEventBroadcaster, ItemEventBroadcaster::getResyncCount)
+                    .register(registry);
+
+            Gauge.builder("findnest.thumbnails.queued", thumbnailService, ThumbnailService::getQueuedCount).register(registry);
+            FunctionCounter.builder("findnest.thumbnails", thumbnailService, ThumbnailService::getGeneratedCount)
+                    .tag("result", "generated").register(registry);
+            FunctionCounter.builder("findnest.thumbnails", thumbnailService, ThumbnailService::getFailedCount)
+                    .tag("result", "failed").register(registry);
+            FunctionCounter.builder("findnest.thumbnails", thumbnailService, ThumbnailService::getRejectedCount)
+                    .tag("result", "rejected").register(registry);
+
+            Gauge.builder("findnest.history.archive.records", historyArchive, HistoryArchive::getRecordCount).register(registry);
+            Gauge.builder("findnest.history.archive.segments", historyArchive, HistoryArchive::getSegmentCount).register(registry);
+
+            Gauge.builder("findnest.users.cache.size", userCache, cache -> cache.getStats().getSize()).register(registry);
+            FunctionCounter.builder("findnest.users.cache.requests", userCache, cache -> cache.getStats().getHits())
+                    .tag("result", "hit").register(registry);
+            FunctionCounter.builder("findnest.users.cache.requests", userCache, cache -> cache.getStats().getMisses())
+                    .tag("result", "miss").register(registry);
+            FunctionCounter.builder("findnest.users.cache.evictions", userCache, cache -> cache.getStats().getEvictions())
+                    .register(registry);
+
+            Gauge.builder("findnest.auth.tokens.cached", tokenVerifier, verifier -> verifier.getStats().getCachedTokens())
+                    .register(registry);
+            FunctionCounter.builder("findnest.auth.verifications", tokenVerifier, verifier -> verifier.getStats().getCacheHits())
+                    .tag("result", "cached").register(registry);
+            FunctionCounter.builder("findnest.auth.verifications", tokenVerifier, verifier -> verifier.getStats().getCacheMisses())
+                    .tag("result", "verified").register(registry);
+            FunctionCounter.builder("findnest.auth.verification.failures", tokenVerifier,
+                    verifier -> verifier.getStats().getVerificationFailures()).register(registry);
+        };
+    }
+}
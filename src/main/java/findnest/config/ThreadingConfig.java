@@ -0,0 +1,73 @@
+package findnest.config;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Executor used to resume work after a Firebase callback fires, so continuations never run
+ * on the Firebase event thread. With {@code spring.threads.virtual.enabled=true} it hands out
+ * a virtual thread per task, matching the virtual-thread Tomcat executor Spring Boot installs.
+ */
+@Configuration
+public class ThreadingConfig {
+
+    private static final Logger log = LoggerFactory.getLogger(ThreadingConfig.class);
+
+    @Bean(destroyMethod = "shutdown")
+    public ExecutorService firebaseCallbackExecutor(
+            @Value("${spring.threads.virtual.enabled:false}") boolean virtualThreads,
+            @Value("${findnest.firebase.callback-threads:16}") int callbackThreads) {
+        if (virtualThreads) {
+            log.info("Firebase callbacks complete on virtual threads.");
+            return Executors.newThreadPerTaskExecutor(Thread.ofVirtual().name("firebase-callback-", 0).factory());
+        }
+
+        AtomicInteger counter = new AtomicInteger();
+        return Executors.newFixedThreadPool(callbackThreads, runnable -> {
+            Thread thread = new Thread(runnable, "firebase-callback-" + counter.getAndIncrement());
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    // Writes to Server-Sent Events clients, kept apart so slow sockets never delay Firebase callbacks
+    @Bean(destroyMethod = "shutdown")
+    public ExecutorService itemStreamExecutor(
+            @Value("${spring.threads.virtual.enabled:false}") boolean virtualThreads,
+            @Value("${findnest.items.stream.send-threads:4}") int sendThreads) {
+        if (virtualThreads) {
+            return Executors.newThreadPerTaskExecutor(Thread.ofVirtual().name("item-stream-", 0).factory());
+        }
+
+        AtomicInteger counter = new AtomicInteger();
+        return Executors.newFixedThreadPool(sendThreads, runnable -> {
+            Thread thread = new Thread(runnable, "item-stream-" + counter.getAndIncrement());
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    // Reads of archived history segments, which fetch and decompress objects and would otherwise block callbacks
+    @Bean(destroyMethod = "shutdown")
+    public ExecutorService historyArchiveExecutor(
+            @Value("${spring.threads.virtual.enabled:false}") boolean virtualThreads,
+            @Value("${findnest.history.archive.read-threads:2}") int readThreads) {
+        if (virtualThreads) {
+            return Executors.newThreadPerTaskExecutor(Thread.ofVirtual().name("history-archive-", 0).factory());
+        }
+
+        AtomicInteger counter = new AtomicInteger();
+        return Executors.newFixedThreadPool(readThreads, runnable -> {
+            Thread thread = new Thread(runnable, "history-archive-" + counter.getAndIncrement());
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+}
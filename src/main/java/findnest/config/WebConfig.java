@@ -1,12 +1,29 @@
 package findnest.config;
 
+import findnest.service.LocalImageStore;
+
+import org.springframework.beans.factory.ObjectProvider;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.web.servlet.config.annotation.CorsRegistry;
+import org.springframework.web.servlet.config.annotation.ResourceHandlerRegistry;
 import org.springframework.web.servlet.config.annotation.WebMvcConfigurer;
 
 @Configuration
 public class WebConfig implements WebMvcConfigurer {
 
+    private final ObjectProvider<LocalImageStore> localImageStore;
+
+    public WebConfig(ObjectProvider<LocalImageStore> localImageStore) {
+        this.localImageStore = localImageStore;
+    }
+
+    // Serves images written by the local image store, standing in for the bucket's download URLs
+    @Override
+    public void addResourceHandlers(ResourceHandlerRegistry registry) {
+        localImageStore.ifAvailable(store -> registry.addResourceHandler("/images/**")
+            .addResourceLocations(store.getDirectory().toUri().toString()));
+    }
+
     @Override
     public void addCorsMappings(CorsRegistry registry) {
         registry.addMapping("/**")
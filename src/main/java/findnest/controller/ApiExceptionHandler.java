@@ -0,0 +1,62 @@
+package findnest.controller;
+
+import com.google.firebase.database.DatabaseException;
+import findnest.service.ItemAlreadyClaimedException;
+import findnest.service.ItemNotFoundException;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.ExceptionHandler;
+import org.springframework.web.bind.annotation.RestControllerAdvice;
+
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeoutException;
+
+// Maps failures of the async service calls to HTTP responses
+@RestControllerAdvice
+public class ApiExceptionHandler {
+
+    private static final Logger log = LoggerFactory.getLogger(ApiExceptionHandler.class);
+
+    @ExceptionHandler(ItemNotFoundException.class)
+    public ResponseEntity<String> handleNotFound(ItemNotFoundException e) {
+        return new ResponseEntity<>(e.getMessage(), HttpStatus.NOT_FOUND);
+    }
+
+    @ExceptionHandler(ItemAlreadyClaimedException.class)
+    public ResponseEntity<String> handleAlreadyClaimed(ItemAlreadyClaimedException e) {
+        return new ResponseEntity<>(e.getMessage(), HttpStatus.CONFLICT);
+    }
+
+    @ExceptionHandler(TimeoutException.class)
+    public ResponseEntity<String> handleTimeout(TimeoutException e) {
+        return new ResponseEntity<>("Timed out waiting for the database", HttpStatus.GATEWAY_TIMEOUT);
+    }
+
+    @ExceptionHandler(DatabaseException.class)
+    public ResponseEntity<String> handleDatabase(DatabaseException e) {
+        log.error("Database error", e);
+        return new ResponseEntity<>("Database error: " + e.getMessage(), HttpStatus.BAD_GATEWAY);
+    }
+
+    @ExceptionHandler({CompletionException.class, ExecutionException.class})
+    public ResponseEntity<String> handleWrapped(Exception e) throws Exception {
+        Throwable cause = e.getCause();
+        if (cause instanceof ItemNotFoundException notFound) {
+            return handleNotFound(notFound);
+        }
+        if (cause instanceof ItemAlreadyClaimedException alreadyClaimed) {
+            return handleAlreadyClaimed(alreadyClaimed);
+        }
+        if (cause instanceof TimeoutException timeout) {
+            return handleTimeout(timeout);
+        }
+        if (cause instanceof DatabaseException database) {
+            return handleDatabase(database);
+        }
+        throw e;
+    }
+}
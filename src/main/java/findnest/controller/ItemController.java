@@ -1,9 +1,20 @@
 package findnest.controller;
 
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import findnest.model.BulkArchiveResult;
+import findnest.model.BulkIngestResult;
+import findnest.model.ClaimResult;
+import findnest.model.ItemFilter;
+import findnest.model.ItemStats;
 import findnest.model.Items;
+import findnest.service.ItemEventBroadcaster;
 import findnest.service.ItemService;
 
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.DeleteMapping;
 import org.springframework.web.bind.annotation.GetMapping;
@@ -12,71 +23,236 @@ import org.springframework.web.bind.annotation.PathVariable;
 import org.springframework.web.bind.annotation.PostMapping;
 import org.springframework.web.bind.annotation.PutMapping;
 import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.bind.annotation.RequestHeader;
 import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.function.Supplier;
 
 
 @RestController
 @RequestMapping("/api/items")
 public class ItemController {
 
+    private static final MediaType NDJSON = MediaType.parseMediaType("application/x-ndjson");
+
     private final ItemService itemService;
+    private final ObjectMapper objectMapper;
+    private final ItemProjection projection;
+    private final ItemEventBroadcaster itemEventBroadcaster;
 
     @Autowired
-    public ItemController(ItemService itemService) {
+    public ItemController(ItemService itemService, ObjectMapper objectMapper, ItemEventBroadcaster itemEventBroadcaster) {
         this.itemService = itemService;
+        this.objectMapper = objectMapper;
+        this.itemEventBroadcaster = itemEventBroadcaster;
+        this.projection = new ItemProjection(objectMapper);
     }
 
     @PostMapping("/save")
-    public Items saveItem(@RequestBody Items item) {
-        return itemService.saveItem(item);
+    public CompletableFuture<Items> saveItem(@RequestBody Items item) {
+        return itemService.saveItemAsync(item);
+    }
+
+    @PostMapping(value = "/bulk", consumes = MediaType.APPLICATION_JSON_VALUE)
+    public CompletableFuture<BulkIngestResult> saveItems(@RequestBody List<Items> items) {
+        return itemService.saveItemsAsync(items);
+    }
+
+    // One item per line; a line that cannot be parsed is reported as failed at its position
+    @PostMapping(value = "/bulk", consumes = "application/x-ndjson")
+    public CompletableFuture<BulkIngestResult> saveItemsNdjson(InputStream body) throws IOException {
+        List<Items> items = new ArrayList<>();
+        BufferedReader reader = new BufferedReader(new InputStreamReader(body, StandardCharsets.UTF_8));
+        String line;
+        while ((line = reader.readLine()) != null) {
+            if (line.isBlank()) {
+                continue;
+            }
+            try {
+                items.add(objectMapper.readValue(line, Items.class));
+            } catch (JsonProcessingException e) {
+                items.add(null);
+            }
+        }
+        return itemService.saveItemsAsync(items);
+    }
+
+    // Live item changes and counts as Server-Sent Events, in place of polling
+    @GetMapping(value = "/stream", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    public SseEmitter streamItemChanges() {
+        return itemEventBroadcaster.subscribe();
     }
 
     @GetMapping("/{id}")
-    public Items getItemById(@PathVariable String id) {
-        return itemService.getItemById(id);
+    public CompletableFuture<Items> getItemById(@PathVariable String id) {
+        return itemService.getItemByIdAsync(id);
     }
 
+    // Without a limit the whole collection is returned, as before.
+    // view=summary or fields=a,b,c trim each element down to what the caller needs.
     @GetMapping
-    public List<Items> getAllItems() {
-        return itemService.getAllItems();
+    public CompletableFuture<ResponseEntity<Object>> getAllItems(
+        @RequestParam(required = false) Integer limit,
+        @RequestParam(required = false) String cursor,
+        @RequestParam(required = false) String view,
+        @RequestParam(required = false) String fields,
+        @RequestHeader(value = HttpHeaders.IF_NONE_MATCH, required = false) String ifNoneMatch) {
+
+        return withETag(itemService.getItemsVersion(), ifNoneMatch, () -> {
+            if (limit == null) {
+                return itemService.getAllItemsAsync().thenApply(items -> projection.list(items, view, fields));
+            }
+            return itemService.getItemsPageAsync(cursor, limit).thenApply(page -> projection.page(page, view, fields));
+        });
+    }
+
+    // Server-side filtering backed by the in-memory field indexes
+    @GetMapping("/filter")
+    public CompletableFuture<?> findItems(
+        @RequestParam(required = false) String category,
+        @RequestParam(required = false) String status,
+        @RequestParam(required = false) String department,
+        @RequestParam(required = false) String location,
+        @RequestParam(required = false) String from,
+        @RequestParam(required = false) String to,
+        @RequestParam(required = false) String view,
+        @RequestParam(required = false) String fields) {
+
+        return itemService.findItemsAsync(new ItemFilter(status, category, department, location, from, to))
+            .thenApply(items -> projection.list(items, view, fields));
+    }
+
+    // Free-text search over item name, description, location and finder, best matches first
+    @GetMapping("/search")
+    public CompletableFuture<?> searchItems(
+        @RequestParam("q") String query,
+        @RequestParam(defaultValue = "20") int limit,
+        @RequestParam(required = false) String view,
+        @RequestParam(required = false) String fields) {
+
+        return itemService.searchItemsAsync(query, limit).thenApply(items -> projection.list(items, view, fields));
     }
 
     @PutMapping("/{id}")
-    public Items updateItem(@PathVariable String id, @RequestBody Items item) {
-        return itemService.updateItem(id, item);
+    public CompletableFuture<Items> updateItem(@PathVariable String id, @RequestBody Items item) {
+        return itemService.updateItemAsync(id, item);
     }
 
     @DeleteMapping("/{id}")
-    public void deleteItem(@PathVariable String id) {
-        itemService.deleteItem(id);
+    public CompletableFuture<Void> deleteItem(@PathVariable String id) {
+        return itemService.deleteItemAsync(id);
     }
 
+    // Moves the given items to history in batched multi-location writes
+    @PostMapping("/archive")
+    public CompletableFuture<BulkArchiveResult> archiveItems(@RequestBody List<String> ids) {
+        return itemService.archiveItemsAsync(ids);
+    }
+
+    // No ETag: other writers can change ItemsHistory without this instance noticing
     @GetMapping("/history")
-    public List<Items> getAllItemsFromHistory() {
-        return itemService.getAllItemsFromHistory();
+    public CompletableFuture<?> getAllItemsFromHistory(
+        @RequestParam(required = false) Integer limit,
+        @RequestParam(required = false) String cursor,
+        @RequestParam(required = false) String view,
+        @RequestParam(required = false) String fields) {
+
+        if (limit == null) {
+            return itemService.getAllItemsFromHistoryAsync().thenApply(items -> projection.list(items, view, fields));
+        }
+        return itemService.getItemsFromHistoryPageAsync(cursor, limit).thenApply(page -> projection.page(page, view, fields));
+    }
+
+    // Streams items or history records as newline-delimited JSON, one chunk at a time
+    @GetMapping("/export")
+    public ResponseEntity<StreamingResponseBody> exportItems(
+        @RequestParam(defaultValue = "items") String source,
+        @RequestParam(required = false) String status,
+        @RequestParam(required = false) String category,
+        @RequestParam(required = false) String from,
+        @RequestParam(required = false) String to) {
+
+        boolean fromHistory = "history".equalsIgnoreCase(source);
+        ItemFilter filter = new ItemFilter(status, category, null, null, from, to);
+
+        StreamingResponseBody body = outputStream -> {
+            try {
+                itemService.exportItems(fromHistory, filter, page -> {
+                    try {
+                        for (Items item : page) {
+                            outputStream.write(objectMapper.writeValueAsBytes(item));
+                            outputStream.write('\n');
+                        }
+                        outputStream.flush();
+                    } catch (IOException e) {
+                        throw new UncheckedIOException(e);
+                    }
+                });
+            } catch (UncheckedIOException e) {
+                throw e.getCause();
+            }
+        };
+
+        return ResponseEntity.ok().contentType(NDJSON).body(body);
     }
 
     @GetMapping("/history/{id}")
-    public Items getItemFromHistoryById(@PathVariable String id) {
-        return itemService.getItemFromHistoryById(id);
+    public CompletableFuture<Items> getItemFromHistoryById(@PathVariable String id) {
+        return itemService.getItemFromHistoryByIdAsync(id);
     }
 
     @GetMapping("/count")
-    public Items countAllItems() {
-        return itemService.countAllItems();
+    public CompletableFuture<ResponseEntity<Object>> countAllItems(
+        @RequestHeader(value = HttpHeaders.IF_NONE_MATCH, required = false) String ifNoneMatch) {
+
+        return withETag(itemService.getItemsVersion(), ifNoneMatch, itemService::countAllItemsAsync);
     }
 
+    @GetMapping("/count/breakdown")
+    public CompletableFuture<ResponseEntity<Object>> countItemsBreakdown(
+        @RequestHeader(value = HttpHeaders.IF_NONE_MATCH, required = false) String ifNoneMatch) {
+
+        return withETag(itemService.getItemsVersion(), ifNoneMatch, itemService::countItemsBreakdownAsync);
+    }
+
+    // Weekly found and claimed counts, median days to claim, hotspots and department turnover
+    @GetMapping("/stats")
+    public CompletableFuture<ItemStats> getItemStats(
+        @RequestParam(defaultValue = "12") int weeks,
+        @RequestParam(defaultValue = "10") int top) {
+
+        return itemService.getItemStatsAsync(weeks, top);
+    }
+
+    // Claims an unclaimed item, or edits the claim details of a claimed one; 409 when another claim won the race
     @PatchMapping("/{id}")
-    public Items patchItem(@PathVariable String id, @RequestBody Map<String, Object> updates) {
-        return itemService.patchItem(id, updates);
+    public CompletableFuture<Items> patchItem(@PathVariable String id, @RequestBody Map<String, Object> updates) {
+        return itemService.patchItemAsync(id, updates);
+    }
+
+    // 409 with the current item when someone else claimed it first
+    @PostMapping("/{id}/claim")
+    public CompletableFuture<ResponseEntity<ClaimResult>> claimItem(@PathVariable String id, @RequestBody Map<String, Object> claim) {
+        return itemService.claimItemAsync(id, claim)
+            .thenApply(result -> ResponseEntity.status(result.isClaimed() ? HttpStatus.OK : HttpStatus.CONFLICT).body(result));
     }
 
     @PatchMapping("/{id}/turnover")
-    public ResponseEntity<Items> updateTurnoverDetails(
+    public CompletableFuture<ResponseEntity<Items>> updateTurnoverDetails(
         @PathVariable String id,
         @RequestBody Map<String, String> updates) {
 
@@ -84,14 +260,39 @@ public class ItemController {
         String turnoverPerson = updates.get("turnoverPerson");
         String department = updates.get("department");
 
-        // Ensure that the service method exists
-        Items updatedItem = itemService.updateTurnoverDetails(id, turnoverDate, turnoverPerson, department);
+        // A missing item completes with ItemNotFoundException, which is mapped to 404
+        return itemService.updateTurnoverDetailsAsync(id, turnoverDate, turnoverPerson, department)
+            .thenApply(ResponseEntity::ok);
+    }
 
-        if (updatedItem != null) {
-            return ResponseEntity.ok(updatedItem);
-        } else {
-            return ResponseEntity.notFound().build();
+    // Answers 304 when the client already holds this version, otherwise tags the response with it.
+    // Without a version (cache not loaded yet) the response is sent untagged.
+    private static CompletableFuture<ResponseEntity<Object>> withETag(String version, String ifNoneMatch,
+                                                                      Supplier<CompletableFuture<?>> response) {
+        if (version == null) {
+            return response.get().thenApply(body -> ResponseEntity.ok().body((Object) body));
         }
+        String etag = "\"" + version + "\"";
+        if (matchesETag(ifNoneMatch, etag)) {
+            return CompletableFuture.completedFuture(ResponseEntity.status(HttpStatus.NOT_MODIFIED).eTag(etag).build());
+        }
+        return response.get().thenApply(body -> ResponseEntity.ok().eTag(etag).body((Object) body));
     }
 
-}
\ No newline at end of file
+    // Weak comparison, as If-None-Match requires; compression may have weakened the tag
+    private static boolean matchesETag(String ifNoneMatch, String etag) {
+        if (ifNoneMatch == null) {
+            return false;
+        }
+        for (String candidate : ifNoneMatch.split(",")) {
+            String tag = candidate.trim();
+            if (tag.startsWith("W/")) {
+                tag = tag.substring(2);
+            }
+            if (tag.equals("*") || tag.equals(etag)) {
+                return true;
+            }
+        }
+        return false;
+    }
+}
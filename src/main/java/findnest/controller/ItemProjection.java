@@ -0,0 +1,71 @@
+package findnest.controller;
+
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import findnest.model.ItemPage;
+import findnest.model.ItemSummary;
+import findnest.model.Items;
+import findnest.model.ProjectedPage;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Applies the {@code view} and {@code fields} parameters of the list endpoints.
+ *
+ * view=summary returns {@link ItemSummary} elements; fields=a,b,c returns only those fields
+ * (plus id) of each item, leaving out nulls. With neither, items are returned unchanged.
+ */
+final class ItemProjection {
+
+    private static final TypeReference<Map<String, Object>> FIELD_MAP = new TypeReference<>() {};
+
+    private final ObjectMapper objectMapper;
+
+    ItemProjection(ObjectMapper objectMapper) {
+        this.objectMapper = objectMapper;
+    }
+
+    List<?> list(List<Items> items, String view, String fields) {
+        if ("summary".equalsIgnoreCase(view)) {
+            List<ItemSummary> summaries = new ArrayList<>(items.size());
+            for (Items item : items) {
+                summaries.add(ItemSummary.of(item));
+            }
+            return summaries;
+        }
+        if (fields == null || fields.isBlank()) {
+            return items;
+        }
+
+        Set<String> selected = new LinkedHashSet<>();
+        selected.add("id");
+        for (String field : fields.split(",")) {
+            if (!field.isBlank()) {
+                selected.add(field.trim());
+            }
+        }
+        List<Map<String, Object>> projected = new ArrayList<>(items.size());
+        for (Items item : items) {
+            Map<String, Object> allFields = objectMapper.convertValue(item, FIELD_MAP);
+            Map<String, Object> selection = new LinkedHashMap<>();
+            for (String field : selected) {
+                Object value = allFields.get(field);
+                if (value != null) {
+                    selection.put(field, value);
+                }
+            }
+            projected.add(selection);
+        }
+        return projected;
+    }
+
+    Object page(ItemPage page, String view, String fields) {
+        List<?> items = list(page.getItems(), view, fields);
+        return items == page.getItems() ? page : new ProjectedPage(items, page.getNextCursor());
+    }
+}
@@ -0,0 +1,44 @@
+package findnest.controller;
+
+import findnest.model.AuthStats;
+import findnest.model.ThreadStats;
+import findnest.model.UserCacheStats;
+import findnest.service.ThreadingMetrics;
+import findnest.service.TokenVerifier;
+import findnest.service.UserCache;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+
+@RestController
+@RequestMapping("/api/system")
+public class SystemController {
+
+    private final ThreadingMetrics threadingMetrics;
+    private final UserCache userCache;
+    private final TokenVerifier tokenVerifier;
+
+    @Autowired
+    public SystemController(ThreadingMetrics threadingMetrics, UserCache userCache, TokenVerifier tokenVerifier) {
+        this.threadingMetrics = threadingMetrics;
+        this.userCache = userCache;
+        this.tokenVerifier = tokenVerifier;
+    }
+
+    @GetMapping("/threads")
+    public ThreadStats getThreadStats() {
+        return threadingMetrics.getStats();
+    }
+
+    @GetMapping("/user-cache")
+    public UserCacheStats getUserCacheStats() {
+        return userCache.getStats();
+    }
+
+    @GetMapping("/auth")
+    public AuthStats getAuthStats() {
+        return tokenVerifier.getStats();
+    }
+}
@@ -1,6 +1,7 @@
 package findnest.controller;
 
 import findnest.model.User;
+import findnest.model.UserCounts;
 import findnest.service.UserService;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.web.bind.annotation.*;
@@ -9,11 +10,14 @@ import org.springframework.http.HttpStatus;
 import java.time.LocalDateTime;
 
 import java.util.List;
+import java.util.Map;
 
 @RestController
 @RequestMapping("/api/users")
 public class UserController {
 
+    private static final int MAX_BATCH_IDS = 500;
+
     @Autowired
     private UserService userService;
 
@@ -41,6 +45,20 @@ public class UserController {
         }
     }
 
+    // Resolves many users in one request; ids that do not exist are left out of the map
+    @PostMapping("/batch")
+    public ResponseEntity<?> getUsersByIds(@RequestBody List<String> ids) {
+        if (ids.size() > MAX_BATCH_IDS) {
+            return new ResponseEntity<>("At most " + MAX_BATCH_IDS + " ids per request", HttpStatus.BAD_REQUEST);
+        }
+        try {
+            Map<String, User> users = userService.getUsersByIds(ids);
+            return new ResponseEntity<>(users, HttpStatus.OK);
+        } catch (Exception e) {
+            return new ResponseEntity<>(e.getMessage(), HttpStatus.INTERNAL_SERVER_ERROR);
+        }
+    }
+
     @GetMapping
     public ResponseEntity<?> getAllUsers() {
         try {
@@ -82,6 +100,16 @@ public class UserController {
         }
     }
 
+    @GetMapping("/count/breakdown")
+    public ResponseEntity<?> getUserCountsBreakdown() {
+        try {
+            UserCounts counts = userService.getUserCountsBreakdown();
+            return new ResponseEntity<>(counts, HttpStatus.OK);
+        } catch (Exception e) {
+            return new ResponseEntity<>(e.getMessage(), HttpStatus.INTERNAL_SERVER_ERROR);
+        }
+    }
+
     @PatchMapping("/{id}/profile-picture")
     public ResponseEntity<?> updateProfilePicture(@PathVariable String id, @RequestParam String profilePictureUrl) {
         try {
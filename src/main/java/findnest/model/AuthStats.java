@@ -0,0 +1,20 @@
+package findnest.model;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+public class AuthStats {
+    private String verifier; // firebase or local
+    private int cachedTokens;
+    private long cacheHits;
+    private long cacheMisses;
+    private long verificationFailures;
+    private double averageVerificationMs; // Over cache misses only
+    private double maxVerificationMs;
+    private int signingKeys; // Keys held by the local key set, 0 when verifying through Firebase
+    private String keysRefreshedAt;
+}
@@ -0,0 +1,15 @@
+package findnest.model;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+public class BulkArchiveResult {
+    private List<String> archivedIds;
+    private List<String> notFoundIds;
+}
@@ -0,0 +1,16 @@
+package findnest.model;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+public class BulkIngestResult {
+    private int savedCount;
+    private int failedCount;
+    private List<BulkItemResult> results;
+}
@@ -0,0 +1,16 @@
+package findnest.model;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+// Outcome for one entry of a bulk ingest, by its position in the request
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+public class BulkItemResult {
+    private int index;
+    private String id;
+    private boolean saved;
+    private String error;
+}
@@ -0,0 +1,14 @@
+package findnest.model;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+// Outcome of a claim attempt; claimed is false when someone else had already claimed the item
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+public class ClaimResult {
+    private Items item;
+    private boolean claimed;
+}
@@ -0,0 +1,16 @@
+package findnest.model;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+public class DepartmentTurnover {
+    private long itemCount;
+    private long claimedCount;
+    private long turnedOverCount; // Items with a turnoverDate
+    private double claimRate;
+    private double turnoverRate;
+}
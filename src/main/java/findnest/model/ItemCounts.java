@@ -0,0 +1,18 @@
+package findnest.model;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.Map;
+
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+public class ItemCounts {
+    private long totalCount;
+    private long availableCount;
+    private long claimedCount;
+    private Map<String, Long> categoryCounts;
+    private Map<String, Long> departmentCounts;
+}
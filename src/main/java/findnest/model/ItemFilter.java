@@ -0,0 +1,48 @@
+package findnest.model;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+public class ItemFilter {
+    private String status;
+    private String category;
+    private String department;
+    private String location;
+    private String dateFrom; // Inclusive, yyyy-MM-dd, compared against dateFound
+    private String dateTo;   // Inclusive, yyyy-MM-dd, compared against dateFound
+
+    public boolean matches(Items item) {
+        if (item == null) {
+            return false;
+        }
+        if (!matchesField(status, item.getStatus())
+                || !matchesField(category, item.getCategory())
+                || !matchesField(department, item.getDepartment())
+                || !matchesField(location, item.getLocation())) {
+            return false;
+        }
+        if (dateFrom != null || dateTo != null) {
+            String date = item.getDateFound();
+            if (date == null || date.length() < 10) {
+                return false;
+            }
+            date = date.substring(0, 10);
+            if (dateFrom != null && date.compareTo(dateFrom) < 0) {
+                return false;
+            }
+            if (dateTo != null && date.compareTo(dateTo) > 0) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static boolean matchesField(String expected, String actual) {
+        return expected == null || expected.isEmpty()
+                || (actual != null && expected.trim().equalsIgnoreCase(actual.trim()));
+    }
+}
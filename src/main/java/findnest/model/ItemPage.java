@@ -0,0 +1,15 @@
+package findnest.model;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+public class ItemPage {
+    private List<Items> items;
+    private String nextCursor; // Key of the last item in this page, null when there are no more pages
+}
@@ -0,0 +1,21 @@
+package findnest.model;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.Map;
+
+// Rollups over items and ItemsHistory together; weeks are keyed by their Monday, yyyy-MM-dd
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+public class ItemStats {
+    private Map<String, Long> foundPerWeek;
+    private Map<String, Long> claimedPerWeek;
+    private Double medianDaysToClaim; // Null until an item with both dates has been claimed
+    private long claimsMeasured;
+    private Map<String, Long> categoryHotspots; // Most found first
+    private Map<String, Long> locationHotspots;
+    private Map<String, DepartmentTurnover> departments;
+}
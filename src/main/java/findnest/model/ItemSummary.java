@@ -0,0 +1,31 @@
+package findnest.model;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+// The fields the item grid shows, returned by list endpoints with view=summary
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+@JsonInclude(JsonInclude.Include.NON_NULL)
+public class ItemSummary {
+    private String id;
+    private String item;
+    private String status;
+    private String category;
+    private String dateFound;
+    private String location;
+    private String imageUrl; // Thumbnail of the item's first image, or the image itself until it has one
+
+    public static ItemSummary of(Items item) {
+        List<String> images = item.getThumbnailUrls() != null && !item.getThumbnailUrls().isEmpty()
+                ? item.getThumbnailUrls() : item.getImageUrls();
+        String imageUrl = images == null || images.isEmpty() ? null : images.get(0);
+        return new ItemSummary(item.getId(), item.getItem(), item.getStatus(), item.getCategory(),
+                item.getDateFound(), item.getLocation(), imageUrl);
+    }
+}
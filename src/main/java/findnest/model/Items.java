@@ -1,6 +1,7 @@
 package findnest.model;
 
 import lombok.AllArgsConstructor;
+import lombok.Builder;
 import lombok.Data;
 import lombok.NoArgsConstructor;
 
@@ -8,6 +9,7 @@ import java.time.LocalDateTime;
 import java.util.List;
 
 @Data
+@Builder(toBuilder = true)
 @AllArgsConstructor
 @NoArgsConstructor
 public class Items {
@@ -38,4 +40,10 @@ public class Items {
     // Newly added fields
     private String foundByName; // Name of the person who found the item
     private String staffInvolved; // Name of the staff involved in the process
+
+    // Resized copies of the images, written in the background after a save
+    private List<String> thumbnailUrls; // Same order as imageUrls
+    private String claimantThumbnail;
+
+    private String archivedAt; // Set on history records when the item is moved to ItemsHistory
 }
\ No newline at end of file
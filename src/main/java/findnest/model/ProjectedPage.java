@@ -0,0 +1,16 @@
+package findnest.model;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+// An ItemPage whose items have been reduced to a summary or a field selection
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+public class ProjectedPage {
+    private List<?> items;
+    private String nextCursor;
+}
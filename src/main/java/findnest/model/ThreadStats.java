@@ -0,0 +1,18 @@
+package findnest.model;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+public class ThreadStats {
+    private boolean virtualThreadsEnabled;
+    private int platformThreadCount;
+    private int peakPlatformThreadCount;
+    private int tomcatWorkerThreadCount;
+    private int carrierThreadCount; // Platform threads currently carrying virtual threads
+    private long inFlightFirebaseCalls;
+    private long peakInFlightFirebaseCalls;
+}
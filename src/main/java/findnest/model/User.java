@@ -18,6 +18,7 @@ public class User {
     private String email;
     private String password;
     private String profilePicture;
+    private String profileThumbnail; // Resized copy of profilePicture, written in the background
     private String username;
     private String department;
     private String role;
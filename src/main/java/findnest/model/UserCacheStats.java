@@ -0,0 +1,20 @@
+package findnest.model;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+public class UserCacheStats {
+    private int size;
+    private int maxSize;
+    private long ttlMs;
+    private long hits;
+    private long misses;
+    private long evictions; // Entries dropped to stay under maxSize
+    private long expirations;
+    private long invalidations;
+    private double hitRate;
+}
@@ -0,0 +1,16 @@
+package findnest.model;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.Map;
+
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+public class UserCounts {
+    private long totalCount;
+    private Map<String, Long> roleCounts;
+    private Map<String, Long> departmentCounts;
+}
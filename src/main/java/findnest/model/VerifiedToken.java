@@ -0,0 +1,18 @@
+package findnest.model;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.Map;
+
+// Claims of a verified Firebase ID token
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+public class VerifiedToken {
+    private String uid;
+    private String email;
+    private long expiresAt; // Epoch seconds, from the exp claim
+    private Map<String, Object> claims;
+}
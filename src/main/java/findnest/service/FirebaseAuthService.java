@@ -1,19 +1,26 @@
 package findnest.service;
 
-import com.google.firebase.auth.FirebaseAuth;
-import com.google.firebase.auth.FirebaseToken;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 import org.springframework.stereotype.Service;
 
 @Service
 public class FirebaseAuthService {
 
+    private static final Logger log = LoggerFactory.getLogger(FirebaseAuthService.class);
+
+    private final TokenVerifier tokenVerifier;
+
+    public FirebaseAuthService(TokenVerifier tokenVerifier) {
+        this.tokenVerifier = tokenVerifier;
+    }
+
+    // Uid of a valid token, or null when the token cannot be verified
     public String verifyToken(String idToken) {
         try {
-            FirebaseToken decodedToken = FirebaseAuth.getInstance().verifyIdToken(idToken);
-            String uid = decodedToken.getUid();
-            return uid;
-        } catch (Exception e) {
-            // Handle the exception (log it, rethrow it, etc.)
+            return tokenVerifier.verify(idToken).getUid();
+        } catch (TokenVerificationException e) {
+            log.warn("Token verification failed: {}", e.getMessage());
             return null;
         }
     }
@@ -0,0 +1,222 @@
+package findnest.service;
+
+import com.google.api.core.ApiFuture;
+import com.google.api.core.ApiFutureCallback;
+import com.google.api.core.ApiFutures;
+import com.google.common.util.concurrent.MoreExecutors;
+import com.google.firebase.database.ChildEventListener;
+import com.google.firebase.database.DataSnapshot;
+import com.google.firebase.database.DatabaseError;
+import com.google.firebase.database.DatabaseReference;
+import com.google.firebase.database.FirebaseDatabase;
+import com.google.firebase.database.MutableData;
+import com.google.firebase.database.Query;
+import com.google.firebase.database.Transaction;
+import com.google.firebase.database.ValueEventListener;
+
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.DependsOn;
+import org.springframework.stereotype.Component;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.UnaryOperator;
+
+// Storage backend on Firebase Realtime Database, the default
+@Component
+@ConditionalOnProperty(name = "findnest.storage.backend", havingValue = "firebase", matchIfMissing = true)
+@DependsOn("firebaseConfig")
+public class FirebaseStorageBackend implements StorageBackend {
+
+    private final DatabaseReference rootRef;
+
+    public FirebaseStorageBackend() {
+        this.rootRef = FirebaseDatabase.getInstance().getReference();
+    }
+
+    @Override
+    public String newKey(String node) {
+        return rootRef.child(node).push().getKey();
+    }
+
+    @Override
+    public <T> CompletableFuture<T> get(String path, Class<T> type) {
+        CompletableFuture<T> future = new CompletableFuture<>();
+        rootRef.child(path).addListenerForSingleValueEvent(new ValueEventListener() {
+            @Override
+            public void onDataChange(DataSnapshot snapshot) {
+                try {
+                    future.complete(snapshot.exists() ? snapshot.getValue(type) : null);
+                } catch (RuntimeException e) {
+                    future.completeExceptionally(e);
+                }
+            }
+
+            @Override
+            public void onCancelled(DatabaseError error) {
+                future.completeExceptionally(error.toException());
+            }
+        });
+        return future;
+    }
+
+    @Override
+    public <T> CompletableFuture<Map<String, T>> getChildren(String node, Class<T> type) {
+        return readChildren(rootRef.child(node), null, Integer.MAX_VALUE, type);
+    }
+
+    // startAt includes the cursor itself, so it is fetched as one extra child and skipped
+    @Override
+    public <T> CompletableFuture<Map<String, T>> getChildrenPage(String node, String afterKey, int limit, Class<T> type) {
+        Query query = rootRef.child(node).orderByKey();
+        if (afterKey != null) {
+            query = query.startAt(afterKey);
+        }
+        query = query.limitToFirst(afterKey != null ? limit + 1 : limit);
+        return readChildren(query, afterKey, limit, type);
+    }
+
+    @Override
+    public CompletableFuture<Void> set(String path, Object value) {
+        return toCompletable(rootRef.child(path).setValueAsync(value));
+    }
+
+    @Override
+    public CompletableFuture<Void> remove(String path) {
+        return toCompletable(rootRef.child(path).removeValueAsync());
+    }
+
+    @Override
+    public CompletableFuture<Void> update(String basePath, Map<String, Object> values) {
+        DatabaseReference ref = basePath.isEmpty() ? rootRef : rootRef.child(basePath);
+        return toCompletable(ref.updateChildrenAsync(values));
+    }
+
+    // The handler may run several times: first against the locally cached value, then again
+    // against the server value if the first attempt was based on stale data
+    @Override
+    public <T> CompletableFuture<T> transaction(String path, Class<T> type, UnaryOperator<T> mutator) {
+        CompletableFuture<T> future = new CompletableFuture<>();
+        AtomicReference<T> written = new AtomicReference<>();
+        rootRef.child(path).runTransaction(new Transaction.Handler() {
+            @Override
+            public Transaction.Result doTransaction(MutableData currentData) {
+                written.set(null);
+                T current = currentData.getValue(type);
+                if (current == null) {
+                    // The first run can see an empty local cache; committing no change makes the
+                    // server rerun the handler with its value, and writes nothing if it is missing too
+                    return Transaction.success(currentData);
+                }
+                T updated = mutator.apply(current);
+                if (updated == null) {
+                    return Transaction.abort();
+                }
+                currentData.setValue(updated);
+                written.set(updated);
+                return Transaction.success(currentData);
+            }
+
+            @Override
+            public void onComplete(DatabaseError error, boolean committed, DataSnapshot currentData) {
+                if (error != null) {
+                    future.completeExceptionally(error.toException());
+                } else {
+                    future.complete(committed ? written.get() : null);
+                }
+            }
+        });
+        return future;
+    }
+
+    @Override
+    public <T> void watch(String node, Class<T> type, ChildWatcher<T> watcher) {
+        DatabaseReference ref = rootRef.child(node);
+        ref.addChildEventListener(new ChildEventListener() {
+            @Override
+            public void onChildAdded(DataSnapshot snapshot, String previousChildName) {
+                watcher.onChildChanged(snapshot.getKey(), snapshot.getValue(type));
+            }
+
+            @Override
+            public void onChildChanged(DataSnapshot snapshot, String previousChildName) {
+                watcher.onChildChanged(snapshot.getKey(), snapshot.getValue(type));
+            }
+
+            @Override
+            public void onChildRemoved(DataSnapshot snapshot) {
+                watcher.onChildRemoved(snapshot.getKey());
+            }
+
+            @Override
+            public void onChildMoved(DataSnapshot snapshot, String previousChildName) {
+                // Ordering is by key, nothing to do
+            }
+
+            @Override
+            public void onCancelled(DatabaseError error) {
+                watcher.onCancelled(error.toException());
+            }
+        });
+
+        // Value events fire after the initial child events, so every existing child has been seen here
+        ref.addListenerForSingleValueEvent(new ValueEventListener() {
+            @Override
+            public void onDataChange(DataSnapshot snapshot) {
+                watcher.onLoaded();
+            }
+
+            @Override
+            public void onCancelled(DatabaseError error) {
+                watcher.onCancelled(error.toException());
+            }
+        });
+    }
+
+    private <T> CompletableFuture<Map<String, T>> readChildren(Query query, String skipKey, int limit, Class<T> type) {
+        CompletableFuture<Map<String, T>> future = new CompletableFuture<>();
+        query.addListenerForSingleValueEvent(new ValueEventListener() {
+            @Override
+            public void onDataChange(DataSnapshot snapshot) {
+                try {
+                    Map<String, T> children = new LinkedHashMap<>();
+                    for (DataSnapshot childSnapshot : snapshot.getChildren()) {
+                        if (children.size() == limit) {
+                            break;
+                        }
+                        if (!childSnapshot.getKey().equals(skipKey)) {
+                            children.put(childSnapshot.getKey(), childSnapshot.getValue(type));
+                        }
+                    }
+                    future.complete(children);
+                } catch (RuntimeException e) {
+                    future.completeExceptionally(e);
+                }
+            }
+
+            @Override
+            public void onCancelled(DatabaseError error) {
+                future.completeExceptionally(error.toException());
+            }
+        });
+        return future;
+    }
+
+    private static CompletableFuture<Void> toCompletable(ApiFuture<Void> apiFuture) {
+        CompletableFuture<Void> future = new CompletableFuture<>();
+        ApiFutures.addCallback(apiFuture, new ApiFutureCallback<Void>() {
+            @Override
+            public void onSuccess(Void result) {
+                future.complete(null);
+            }
+
+            @Override
+            public void onFailure(Throwable t) {
+                future.completeExceptionally(t);
+            }
+        }, MoreExecutors.directExecutor());
+        return future;
+    }
+}
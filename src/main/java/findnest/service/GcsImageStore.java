@@ -0,0 +1,119 @@
+package findnest.service;
+
+import com.google.cloud.storage.Blob;
+import com.google.cloud.storage.BlobInfo;
+import com.google.cloud.storage.Bucket;
+import com.google.firebase.cloud.StorageClient;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.DependsOn;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.net.URLDecoder;
+import java.net.URLEncoder;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.Map;
+import java.util.UUID;
+
+/**
+ * Images in the Firebase Storage bucket configured in FirebaseConfig, the default.
+ *
+ * Server-only objects, such as the history archive, go in findnest.images.gcs.objects-bucket
+ * when it is set, a bucket clients have no access to. Otherwise they share the image bucket
+ * under findnest.images.gcs.objects-prefix, which the bucket's security rules must deny to
+ * clients; image reads and writes never touch that prefix.
+ */
+@Component
+@ConditionalOnProperty(name = "findnest.images.store", havingValue = "gcs", matchIfMissing = true)
+@DependsOn("firebaseConfig")
+public class GcsImageStore implements ImageStore {
+
+    private static final String DOWNLOAD_URL_PREFIX = "https://firebasestorage.googleapis.com/v0/b/";
+
+    private final String objectsBucket;
+    private final String objectsPrefix;
+
+    public GcsImageStore(@Value("${findnest.images.gcs.objects-bucket:}") String objectsBucket,
+                         @Value("${findnest.images.gcs.objects-prefix:private/}") String objectsPrefix) {
+        this.objectsBucket = objectsBucket;
+        this.objectsPrefix = objectsPrefix;
+    }
+
+    // Only download URLs of objects in our bucket are read, straight from the bucket. The URL's
+    // token must be one the object was published with, so server-only objects are never returned.
+    @Override
+    public byte[] read(String url) throws IOException {
+        Bucket bucket = StorageClient.getInstance().bucket();
+        String prefix = DOWNLOAD_URL_PREFIX + bucket.getName() + "/o/";
+        if (!url.startsWith(prefix)) {
+            throw new IOException("Not an image in the storage bucket: " + url);
+        }
+        String encodedName = url.substring(prefix.length());
+        int query = encodedName.indexOf('?');
+        String name = URLDecoder.decode(query < 0 ? encodedName : encodedName.substring(0, query), StandardCharsets.UTF_8);
+        Blob blob = isPrivate(name) ? null : bucket.get(name);
+        if (blob == null || !hasDownloadToken(blob, query < 0 ? null : tokenOf(encodedName.substring(query + 1)))) {
+            throw new IOException("Image not found in bucket: " + name);
+        }
+        return blob.getContent();
+    }
+
+    // The download token makes the object readable through the same kind of URL the frontend uploads produce
+    @Override
+    public String write(String name, byte[] data, String contentType) throws IOException {
+        if (isPrivate(name)) {
+            throw new IOException("Image name inside the server-only prefix: " + name);
+        }
+        Bucket bucket = StorageClient.getInstance().bucket();
+        String token = UUID.randomUUID().toString();
+        BlobInfo blobInfo = BlobInfo.newBuilder(bucket.getName(), name)
+                .setContentType(contentType)
+                .setMetadata(Map.of("firebaseStorageDownloadTokens", token))
+                .build();
+        bucket.getStorage().create(blobInfo, data);
+        return DOWNLOAD_URL_PREFIX + bucket.getName() + "/o/" + URLEncoder.encode(name, StandardCharsets.UTF_8)
+                + "?alt=media&token=" + token;
+    }
+
+    @Override
+    public byte[] readObject(String name) {
+        Blob blob = objectsBucket().get(objectsPrefix + name);
+        return blob == null ? null : blob.getContent();
+    }
+
+    // No download token, so the object can't be fetched through a download URL either
+    @Override
+    public void writeObject(String name, byte[] data, String contentType) {
+        Bucket bucket = objectsBucket();
+        bucket.getStorage().create(BlobInfo.newBuilder(bucket.getName(), objectsPrefix + name)
+                .setContentType(contentType).build(), data);
+    }
+
+    private Bucket objectsBucket() {
+        return objectsBucket.isBlank() ? StorageClient.getInstance().bucket() : StorageClient.getInstance().bucket(objectsBucket);
+    }
+
+    // Only matters when server-only objects share the image bucket
+    private boolean isPrivate(String name) {
+        return objectsBucket.isBlank() && !objectsPrefix.isEmpty() && name.startsWith(objectsPrefix);
+    }
+
+    private static String tokenOf(String query) {
+        for (String parameter : query.split("&")) {
+            if (parameter.startsWith("token=")) {
+                return URLDecoder.decode(parameter.substring("token=".length()), StandardCharsets.UTF_8);
+            }
+        }
+        return null;
+    }
+
+    // An object can carry several comma-separated tokens
+    private static boolean hasDownloadToken(Blob blob, String token) {
+        Map<String, String> metadata = blob.getMetadata();
+        String tokens = metadata == null ? null : metadata.get("firebaseStorageDownloadTokens");
+        return token != null && tokens != null && Arrays.asList(tokens.split(",")).contains(token);
+    }
+}
@@ -0,0 +1,359 @@
+package findnest.service;
+
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import findnest.model.Items;
+
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStreamWriter;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.ZoneOffset;
+import java.time.format.DateTimeFormatter;
+import java.time.format.DateTimeParseException;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.Objects;
+import java.util.TreeMap;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.zip.GZIPInputStream;
+import java.util.stream.Stream;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * Cold tier of ItemsHistory: records compacted out of the database into segments of gzip'd
+ * NDJSON, kept as server-only objects under history/ in the {@link ImageStore}, so they
+ * survive restarts and every instance reads the same archive.
+ *
+ * Each compaction batch writes one new segment per month its records were archived in
+ * (ItemsHistory-2025-03-00001.ndjson.gz), going by the last update or creation for records
+ * written before archivedAt existed. Segments are never rewritten, so a batch costs only its
+ * own records, and each is written whole before the index names it. A record appended twice,
+ * by a compaction interrupted before its hot copy was removed, is read once.
+ * index.json lists every segment with its record count and key range; it is the only part kept
+ * in memory, apart from a few recently read segments, and is reloaded every
+ * findnest.history.archive.index-refresh-ms to pick up compactions by other instances.
+ * Compaction numbers segments without coordinating, so only one instance may run it.
+ */
+@Component
+public class HistoryArchive {
+
+    private static final String DIRECTORY = "history/";
+    private static final String INDEX = DIRECTORY + "index.json";
+    private static final String SEGMENT_PREFIX = "ItemsHistory-";
+    private static final String SEGMENT_SUFFIX = ".ndjson.gz";
+    private static final DateTimeFormatter MONTH = DateTimeFormatter.ofPattern("yyyy-MM").withZone(ZoneOffset.UTC);
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+    private final ImageStore store;
+    private final Duration hotRetention;
+    private final int cachedSegments;
+    private final long indexRefreshMs;
+    private final ExecutorService executor;
+
+    // Segment name to its summary; replaced as a whole on every compaction or reload
+    private volatile Map<String, Segment> index;
+    private volatile long indexLoadedAt;
+    // Keyed by summary, so a segment another instance has since rewritten is read afresh
+    private final Map<Segment, NavigableMap<String, Items>> segmentCache;
+
+    public HistoryArchive(ImageStore store,
+                          @Value("${findnest.history.hot-retention-days:0}") long hotRetentionDays,
+                          @Value("${findnest.history.archive.cached-segments:4}") int cachedSegments,
+                          @Value("${findnest.history.archive.index-refresh-ms:60000}") long indexRefreshMs,
+                          @Qualifier("historyArchiveExecutor") ExecutorService executor) {
+        this.store = store;
+        this.hotRetention = Duration.ofDays(hotRetentionDays);
+        this.cachedSegments = cachedSegments;
+        this.indexRefreshMs = indexRefreshMs;
+        this.executor = executor;
+        this.segmentCache = new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<Segment, NavigableMap<String, Items>> eldest) {
+                return size() > HistoryArchive.this.cachedSegments;
+            }
+        };
+    }
+
+    // Compaction is off when the retention is not positive
+    public boolean isEnabled() {
+        return !hotRetention.isNegative() && !hotRetention.isZero();
+    }
+
+    // Whether a hot record is old enough to move to the cold tier, going by when it was archived,
+    // or failing that last updated or created; a record with none of those dates stays hot
+    public boolean isDue(Items record, Instant now) {
+        Instant recordedAt = recordedAt(record);
+        return recordedAt != null && recordedAt.isBefore(now.minus(hotRetention));
+    }
+
+    // Adds records, keyed by history id, as new segments; called by compaction only, and only with
+    // records that are due, which always have a date
+    public synchronized void append(Map<String, Items> records) throws IOException {
+        Map<String, NavigableMap<String, Items>> byMonth = new TreeMap<>();
+        for (Map.Entry<String, Items> entry : records.entrySet()) {
+            Instant recordedAt = recordedAt(entry.getValue());
+            if (recordedAt == null) {
+                throw new IllegalArgumentException("History record " + entry.getKey() + " has no date to archive it by");
+            }
+            byMonth.computeIfAbsent(MONTH.format(recordedAt), month -> new TreeMap<>()).put(entry.getKey(), entry.getValue());
+        }
+
+        // Starts from the stored index rather than the cached one, so no segment is forgotten or reused
+        Map<String, Segment> updated = new HashMap<>(loadIndex());
+        for (Map.Entry<String, NavigableMap<String, Items>> entry : byMonth.entrySet()) {
+            String name = nextSegmentName(updated, entry.getKey());
+            NavigableMap<String, Items> contents = entry.getValue();
+            writeSegment(name, contents);
+            updated.put(name, new Segment(name, contents.size(), contents.firstKey(), contents.lastKey()));
+        }
+        // The index is written after the segments, so it never names records that are not stored
+        writeIndex(updated);
+        index = updated;
+        indexLoadedAt = System.currentTimeMillis();
+    }
+
+    // append on the archive executor, for callers that must not block
+    public CompletableFuture<Void> appendAsync(Map<String, Items> records) {
+        return CompletableFuture.runAsync(() -> {
+            try {
+                append(records);
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        }, executor);
+    }
+
+    public CompletableFuture<Items> find(String id) {
+        if (isKnownEmpty()) {
+            return CompletableFuture.completedFuture(null);
+        }
+        return CompletableFuture.supplyAsync(() -> {
+            for (Segment segment : segmentsByKey()) {
+                if (segment.contains(id)) {
+                    Items record = cachedSegment(segment).get(id);
+                    if (record != null) {
+                        return record;
+                    }
+                }
+            }
+            return null;
+        }, executor);
+    }
+
+    // Up to limit records with keys strictly after afterKey (or from the start when null), in key order
+    public CompletableFuture<NavigableMap<String, Items>> page(String afterKey, int limit) {
+        if (isKnownEmpty()) {
+            return CompletableFuture.completedFuture(new TreeMap<>());
+        }
+        return CompletableFuture.supplyAsync(() -> {
+            TreeMap<String, Items> page = new TreeMap<>();
+            for (Segment segment : segmentsByKey()) {
+                if (afterKey != null && segment.maxKey().compareTo(afterKey) <= 0) {
+                    continue;
+                }
+                // Segments are in order of their first key, so no later one can contribute
+                if (page.size() >= limit && segment.minKey().compareTo(page.lastKey()) > 0) {
+                    break;
+                }
+                NavigableMap<String, Items> records = cachedSegment(segment);
+                for (Map.Entry<String, Items> record : (afterKey == null ? records : records.tailMap(afterKey, false)).entrySet()) {
+                    page.put(record.getKey(), record.getValue());
+                    if (page.size() > limit) {
+                        page.pollLastEntry();
+                    }
+                }
+            }
+            return page;
+        }, executor);
+    }
+
+    // Every archived record; reads segments directly so a full scan does not flush the cache
+    public CompletableFuture<NavigableMap<String, Items>> readAll() {
+        if (isKnownEmpty()) {
+            return CompletableFuture.completedFuture(new TreeMap<>());
+        }
+        return CompletableFuture.supplyAsync(() -> {
+            TreeMap<String, Items> all = new TreeMap<>();
+            for (Segment segment : segmentsByKey()) {
+                try {
+                    all.putAll(readSegment(segment.name()));
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+            }
+            return all;
+        }, executor);
+    }
+
+    // As of the last index load; gauges never trigger a reload
+    public int getSegmentCount() {
+        Map<String, Segment> loaded = index;
+        return loaded == null ? 0 : loaded.size();
+    }
+
+    public long getRecordCount() {
+        Map<String, Segment> loaded = index;
+        return loaded == null ? 0 : loaded.values().stream().mapToLong(Segment::count).sum();
+    }
+
+    // An empty archive is answered without a trip to the executor or the bucket until the index is due a reload
+    private boolean isKnownEmpty() {
+        Map<String, Segment> loaded = index;
+        return loaded != null && loaded.isEmpty() && System.currentTimeMillis() - indexLoadedAt < indexRefreshMs;
+    }
+
+    private List<Segment> segmentsByKey() {
+        List<Segment> segments = new ArrayList<>(currentIndex().values());
+        segments.sort(Comparator.comparing(Segment::minKey));
+        return segments;
+    }
+
+    // Loaded on first use rather than at startup, and again once it is older than the refresh interval
+    private Map<String, Segment> currentIndex() {
+        if (index == null || System.currentTimeMillis() - indexLoadedAt >= indexRefreshMs) {
+            synchronized (this) {
+                if (index == null || System.currentTimeMillis() - indexLoadedAt >= indexRefreshMs) {
+                    try {
+                        index = loadIndex();
+                    } catch (IOException e) {
+                        throw new UncheckedIOException(e);
+                    }
+                    indexLoadedAt = System.currentTimeMillis();
+                }
+            }
+        }
+        return index;
+    }
+
+    private NavigableMap<String, Items> cachedSegment(Segment segment) {
+        synchronized (segmentCache) {
+            NavigableMap<String, Items> cached = segmentCache.get(segment);
+            if (cached != null) {
+                return cached;
+            }
+        }
+        try {
+            NavigableMap<String, Items> records = readSegment(segment.name());
+            synchronized (segmentCache) {
+                segmentCache.put(segment, records);
+            }
+            return records;
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private NavigableMap<String, Items> readSegment(String name) throws IOException {
+        NavigableMap<String, Items> records = new TreeMap<>();
+        byte[] data = store.readObject(DIRECTORY + name);
+        if (data == null) {
+            return records;
+        }
+        try (BufferedReader reader = new BufferedReader(new InputStreamReader(
+                new GZIPInputStream(new ByteArrayInputStream(data)), StandardCharsets.UTF_8))) {
+            String line;
+            while ((line = reader.readLine()) != null) {
+                if (!line.isBlank()) {
+                    Items record = objectMapper.readValue(line, Items.class);
+                    records.put(record.getId(), record);
+                }
+            }
+        }
+        return records;
+    }
+
+    private void writeSegment(String name, NavigableMap<String, Items> records) throws IOException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        try (BufferedWriter writer = new BufferedWriter(new OutputStreamWriter(
+                new GZIPOutputStream(bytes), StandardCharsets.UTF_8))) {
+            for (Items record : records.values()) {
+                writer.write(objectMapper.writeValueAsString(record));
+                writer.newLine();
+            }
+        }
+        store.writeObject(DIRECTORY + name, bytes.toByteArray(), "application/gzip");
+    }
+
+    private Map<String, Segment> loadIndex() throws IOException {
+        byte[] data = store.readObject(INDEX);
+        if (data == null) {
+            return Map.of();
+        }
+        List<Segment> segments = objectMapper.readValue(data, new TypeReference<List<Segment>>() {});
+        Map<String, Segment> loaded = new HashMap<>();
+        segments.forEach(segment -> loaded.put(segment.name(), segment));
+        return loaded;
+    }
+
+    private void writeIndex(Map<String, Segment> segments) throws IOException {
+        List<Segment> sorted = new ArrayList<>(segments.values());
+        sorted.sort(Comparator.comparing(Segment::name));
+        store.writeObject(INDEX, objectMapper.writerWithDefaultPrettyPrinter().writeValueAsBytes(sorted), "application/json");
+    }
+
+    // One past the highest number used for the month, so a new segment never replaces an old one
+    private static String nextSegmentName(Map<String, Segment> segments, String month) {
+        String prefix = SEGMENT_PREFIX + month + "-";
+        int last = 0;
+        for (String name : segments.keySet()) {
+            if (name.startsWith(prefix) && name.endsWith(SEGMENT_SUFFIX)) {
+                try {
+                    last = Math.max(last, Integer.parseInt(name.substring(prefix.length(), name.length() - SEGMENT_SUFFIX.length())));
+                } catch (NumberFormatException e) {
+                    // Not one of ours
+                }
+            }
+        }
+        return String.format("%s%05d%s", prefix, last + 1, SEGMENT_SUFFIX);
+    }
+
+    private static Instant recordedAt(Items record) {
+        return Stream.of(record.getArchivedAt(), record.getUpdatedAt(), record.getCreatedAt())
+                .map(HistoryArchive::parseDate)
+                .filter(Objects::nonNull)
+                .findFirst()
+                .orElse(null);
+    }
+
+    // The service writes ISO timestamps; older records may hold a plain yyyy-MM-dd date
+    private static Instant parseDate(String date) {
+        if (date == null || date.length() < 10) {
+            return null;
+        }
+        try {
+            return Instant.parse(date);
+        } catch (DateTimeParseException e) {
+            // Fall through to the date alone
+        }
+        try {
+            return LocalDate.parse(date.substring(0, 10)).atStartOfDay(ZoneOffset.UTC).toInstant();
+        } catch (DateTimeParseException e) {
+            return null;
+        }
+    }
+
+    record Segment(String name, long count, String minKey, String maxKey) {
+        boolean contains(String key) {
+            return minKey.compareTo(key) <= 0 && maxKey.compareTo(key) >= 0;
+        }
+    }
+}
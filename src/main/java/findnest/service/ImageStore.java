@@ -0,0 +1,27 @@
+package findnest.service;
+
+import java.io.IOException;
+
+/**
+ * Where uploaded images and their thumbnails live. The store is selected with
+ * {@code findnest.images.store}: {@code gcs} for the Firebase Storage bucket, or {@code local}
+ * for a directory on disk standing in for it.
+ *
+ * The same store also keeps objects for the server alone, such as the history archive. Those
+ * are shared by every instance and survive restarts, but are never given a URL.
+ */
+public interface ImageStore {
+
+    // Contents of an image held in this store; a URL pointing anywhere else is rejected, so
+    // client-supplied URLs can never make the server fetch other hosts or files
+    byte[] read(String url) throws IOException;
+
+    // Stores the image under the object name, replacing any previous one, and returns its URL
+    String write(String name, byte[] data, String contentType) throws IOException;
+
+    // Contents of a server-only object, or null when there is none
+    byte[] readObject(String name) throws IOException;
+
+    // Stores a server-only object, replacing any previous one; readers see the old or new contents whole
+    void writeObject(String name, byte[] data, String contentType) throws IOException;
+}
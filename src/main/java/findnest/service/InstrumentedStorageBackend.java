@@ -0,0 +1,216 @@
+package findnest.service;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.Map;
+import java.util.TreeSet;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.function.Supplier;
+import java.util.function.UnaryOperator;
+
+/**
+ * Decorates the active {@link StorageBackend} with Micrometer meters, tagged by node
+ * ({@code items}, {@code ItemsHistory}, {@code users}) and operation.
+ *
+ * <ul>
+ *   <li>{@code findnest.storage.requests}: round-trip time of each read and write, with its outcome</li>
+ *   <li>{@code findnest.storage.children}: number of children returned by collection reads</li>
+ *   <li>{@code findnest.storage.payload}: JSON size of a sample of writes, in bytes</li>
+ *   <li>{@code findnest.storage.watch.events}: child events delivered to watchers</li>
+ * </ul>
+ */
+public class InstrumentedStorageBackend implements StorageBackend, Closeable {
+
+    private final StorageBackend delegate;
+    private final MeterRegistry registry;
+    private final ObjectMapper payloadMapper = new ObjectMapper();
+    // Fraction of writes serialized a second time to measure their size, since that costs the caller's thread
+    private final double payloadSampleRate;
+    private final Map<String, Timer> requestTimers = new ConcurrentHashMap<>();
+    private final Map<String, DistributionSummary> payloadSummaries = new ConcurrentHashMap<>();
+
+    public InstrumentedStorageBackend(StorageBackend delegate, MeterRegistry registry, double payloadSampleRate) {
+        this.delegate = delegate;
+        this.registry = registry;
+        this.payloadSampleRate = payloadSampleRate;
+    }
+
+    // Generated locally, nothing to measure
+    @Override
+    public String newKey(String node) {
+        return delegate.newKey(node);
+    }
+
+    @Override
+    public <T> CompletableFuture<T> get(String path, Class<T> type) {
+        return timed(nodeOf(path), "get", () -> delegate.get(path, type));
+    }
+
+    @Override
+    public <T> CompletableFuture<Map<String, T>> getChildren(String node, Class<T> type) {
+        return countChildren(nodeOf(node), "getChildren", timed(nodeOf(node), "getChildren", () -> delegate.getChildren(node, type)));
+    }
+
+    @Override
+    public <T> CompletableFuture<Map<String, T>> getChildrenPage(String node, String afterKey, int limit, Class<T> type) {
+        return countChildren(nodeOf(node), "getChildrenPage",
+                timed(nodeOf(node), "getChildrenPage", () -> delegate.getChildrenPage(node, afterKey, limit, type)));
+    }
+
+    @Override
+    public CompletableFuture<Void> set(String path, Object value) {
+        recordPayload(nodeOf(path), "set", value);
+        return timed(nodeOf(path), "set", () -> delegate.set(path, value));
+    }
+
+    @Override
+    public CompletableFuture<Void> remove(String path) {
+        return timed(nodeOf(path), "remove", () -> delegate.remove(path));
+    }
+
+    @Override
+    public CompletableFuture<Void> update(String basePath, Map<String, Object> values) {
+        String node = basePath.isEmpty() ? nodesOf(values) : nodeOf(basePath);
+        recordPayload(node, "update", values);
+        return timed(node, "update", () -> delegate.update(basePath, values));
+    }
+
+    @Override
+    public <T> CompletableFuture<T> transaction(String path, Class<T> type, UnaryOperator<T> mutator) {
+        return timed(nodeOf(path), "transaction", () -> delegate.transaction(path, type, mutator));
+    }
+
+    @Override
+    public <T> void watch(String node, Class<T> type, ChildWatcher<T> watcher) {
+        Counter changed = watchEvents(node, "changed");
+        Counter removed = watchEvents(node, "removed");
+        delegate.watch(node, type, new ChildWatcher<T>() {
+            @Override
+            public void onChildChanged(String key, T value) {
+                changed.increment();
+                watcher.onChildChanged(key, value);
+            }
+
+            @Override
+            public void onChildRemoved(String key) {
+                removed.increment();
+                watcher.onChildRemoved(key);
+            }
+
+            @Override
+            public void onLoaded() {
+                watcher.onLoaded();
+            }
+
+            @Override
+            public void onCancelled(Exception error) {
+                watchEvents(node, "cancelled").increment();
+                watcher.onCancelled(error);
+            }
+        });
+    }
+
+    // The wrapper is what Spring destroys, so closing must reach the local backend's change log
+    @Override
+    public void close() throws IOException {
+        if (delegate instanceof Closeable closeable) {
+            closeable.close();
+        }
+    }
+
+    private <T> CompletableFuture<T> timed(String node, String operation, Supplier<CompletableFuture<T>> call) {
+        Timer.Sample sample = Timer.start(registry);
+        CompletableFuture<T> future;
+        try {
+            future = call.get();
+        } catch (RuntimeException e) {
+            sample.stop(requestTimer(node, operation, "error"));
+            throw e;
+        }
+        return future.whenComplete((result, error) ->
+                sample.stop(requestTimer(node, operation, error == null ? "success" : "error")));
+    }
+
+    private <T> CompletableFuture<Map<String, T>> countChildren(String node, String operation, CompletableFuture<Map<String, T>> read) {
+        return read.whenComplete((children, error) -> {
+            if (children != null) {
+                DistributionSummary.builder("findnest.storage.children")
+                        .tag("node", node)
+                        .tag("operation", operation)
+                        .register(registry)
+                        .record(children.size());
+            }
+        });
+    }
+
+    private void recordPayload(String node, String operation, Object value) {
+        if (payloadSampleRate <= 0 || ThreadLocalRandom.current().nextDouble() >= payloadSampleRate) {
+            return;
+        }
+        CountingOutputStream counter = new CountingOutputStream();
+        try {
+            payloadMapper.writeValue(counter, value);
+        } catch (IOException e) {
+            return;
+        }
+        payloadSummaries.computeIfAbsent(node + "/" + operation, key -> DistributionSummary.builder("findnest.storage.payload")
+                .baseUnit("bytes")
+                .tag("node", node)
+                .tag("operation", operation)
+                .register(registry))
+                .record(counter.count);
+    }
+
+    private Timer requestTimer(String node, String operation, String outcome) {
+        return requestTimers.computeIfAbsent(node + "/" + operation + "/" + outcome, key -> Timer.builder("findnest.storage.requests")
+                .tag("node", node)
+                .tag("operation", operation)
+                .tag("outcome", outcome)
+                .register(registry));
+    }
+
+    private Counter watchEvents(String node, String event) {
+        return Counter.builder("findnest.storage.watch.events")
+                .tag("node", nodeOf(node))
+                .tag("event", event)
+                .register(registry);
+    }
+
+    // Top-level node of a path, which keeps the tag cardinality to a handful of values
+    private static String nodeOf(String path) {
+        String trimmed = path.startsWith("/") ? path.substring(1) : path;
+        int slash = trimmed.indexOf('/');
+        String node = slash < 0 ? trimmed : trimmed.substring(0, slash);
+        return node.isEmpty() ? "root" : node;
+    }
+
+    // A root update can span nodes, e.g. the archive write touching items and ItemsHistory
+    private static String nodesOf(Map<String, Object> values) {
+        TreeSet<String> nodes = new TreeSet<>();
+        values.keySet().forEach(path -> nodes.add(nodeOf(path)));
+        return nodes.isEmpty() ? "root" : String.join("+", nodes);
+    }
+
+    private static final class CountingOutputStream extends OutputStream {
+        private long count;
+
+        @Override
+        public void write(int b) {
+            count++;
+        }
+
+        @Override
+        public void write(byte[] b, int off, int len) {
+            count += len;
+        }
+    }
+}
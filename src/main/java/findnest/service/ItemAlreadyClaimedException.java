@@ -0,0 +1,8 @@
+package findnest.service;
+
+public class ItemAlreadyClaimedException extends RuntimeException {
+
+    public ItemAlreadyClaimedException(String id) {
+        super("Item already claimed: " + id);
+    }
+}
@@ -0,0 +1,254 @@
+package findnest.service;
+
+import findnest.model.DepartmentTurnover;
+import findnest.model.ItemStats;
+import findnest.model.Items;
+
+import org.springframework.stereotype.Component;
+
+import java.time.DayOfWeek;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.format.DateTimeParseException;
+import java.time.temporal.ChronoUnit;
+import java.time.temporal.TemporalAdjusters;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+
+/**
+ * Found and claim trends over {@code items} and {@code ItemsHistory}, maintained incrementally
+ * so the stats endpoint never scans either node.
+ *
+ * Current items are tracked from cache changes like {@link ItemCounters}. History records never
+ * change once written, so they are added as the service writes them and rebuilt from a full
+ * walk of both history tiers shortly after startup and then periodically. Records added while a
+ * walk runs are counted by the walk if it reaches them, and replayed into the rebuilt rollups
+ * before the swap otherwise. Time to claim is kept as a histogram of whole days, which gives the
+ * median without holding every duration.
+ */
+@Component
+public class ItemAnalytics implements ItemChangeListener {
+
+    // Claims taking longer land in the last bucket, so the median reads as "at least" this many days
+    private static final int MAX_CLAIM_DAYS = 365;
+    // Records archived this long before a walk started may still be landing while it runs
+    private static final Duration REBUILD_OVERLAP = Duration.ofMinutes(1);
+
+    private final Rollup current = new Rollup();
+    private Rollup history = new Rollup();
+    // While a history walk runs: records added since it started that it has not read yet, and
+    // recent records it has read, so each one is counted exactly once
+    private Map<String, Items> addedDuringRebuild;
+    private Set<String> readDuringRebuild;
+    private Instant rebuildStartedAt;
+
+    @Override
+    public synchronized void onItemChanged(Items previous, Items current) {
+        if (previous != null) {
+            this.current.apply(previous, -1);
+        }
+        if (current != null) {
+            this.current.apply(current, 1);
+        }
+    }
+
+    @Override
+    public synchronized void onItemsReset(Collection<Items> items) {
+        current.clear();
+        for (Items item : items) {
+            current.apply(item, 1);
+        }
+    }
+
+    public synchronized void historyAdded(Items record) {
+        history.apply(record, 1);
+        if (addedDuringRebuild != null && record.getId() != null && !readDuringRebuild.contains(record.getId())) {
+            addedDuringRebuild.put(record.getId(), record);
+        }
+    }
+
+    // Starts a walk; the rollups it returns are filled through historyRebuilt
+    public synchronized Rollup beginHistoryRebuild() {
+        addedDuringRebuild = new HashMap<>();
+        readDuringRebuild = new HashSet<>();
+        rebuildStartedAt = Instant.now().minus(REBUILD_OVERLAP);
+        return new Rollup();
+    }
+
+    public synchronized void historyRebuilt(Rollup rebuilt, Collection<Items> records) {
+        for (Items record : records) {
+            rebuilt.apply(record, 1);
+            String id = record.getId();
+            if (id != null && addedDuringRebuild.remove(id) == null && isRecent(record)) {
+                readDuringRebuild.add(id);
+            }
+        }
+    }
+
+    // Swaps in rollups built off to the side from a full history walk, with the records it missed
+    public synchronized void historyReset(Rollup rebuilt) {
+        addedDuringRebuild.values().forEach(record -> rebuilt.apply(record, 1));
+        history = rebuilt;
+        abandonHistoryRebuild();
+    }
+
+    // A failed walk leaves the current rollups in place
+    public synchronized void abandonHistoryRebuild() {
+        addedDuringRebuild = null;
+        readDuringRebuild = null;
+        rebuildStartedAt = null;
+    }
+
+    // Only records archived around or after the start of the walk can also reach historyAdded
+    private boolean isRecent(Items record) {
+        try {
+            return record.getArchivedAt() != null && !Instant.parse(record.getArchivedAt()).isBefore(rebuildStartedAt);
+        } catch (DateTimeParseException e) {
+            return false;
+        }
+    }
+
+    // The last `weeks` weeks up to the current one, and the `top` most common categories and locations
+    public synchronized ItemStats getStats(int weeks, int top) {
+        Rollup all = new Rollup();
+        all.add(current);
+        all.add(history);
+
+        String since = weekOf(LocalDate.now()).minusWeeks(Math.max(weeks, 1) - 1L).toString();
+        Map<String, DepartmentTurnover> departments = new TreeMap<>();
+        all.departments.forEach((department, counts) -> departments.put(department, new DepartmentTurnover(
+                counts[0], counts[1], counts[2], (double) counts[1] / counts[0], (double) counts[2] / counts[0])));
+
+        return new ItemStats(all.foundPerWeek.tailMap(since), all.claimedPerWeek.tailMap(since),
+                all.medianDaysToClaim(), all.claimsMeasured, topCounts(all.categories, top), topCounts(all.locations, top),
+                departments);
+    }
+
+    private static Map<String, Long> topCounts(Map<String, Long> counts, int top) {
+        Map<String, Long> ranked = new LinkedHashMap<>();
+        counts.entrySet().stream()
+                .sorted(Map.Entry.<String, Long>comparingByValue().reversed().thenComparing(Map.Entry.comparingByKey()))
+                .limit(Math.max(top, 0))
+                .forEach(entry -> ranked.put(entry.getKey(), entry.getValue()));
+        return ranked;
+    }
+
+    private static LocalDate weekOf(LocalDate date) {
+        return date.with(TemporalAdjusters.previousOrSame(DayOfWeek.MONDAY));
+    }
+
+    // Dates are stored as yyyy-MM-dd or as ISO timestamps; only the day is used
+    private static LocalDate dayOf(String date) {
+        if (date == null || date.length() < 10) {
+            return null;
+        }
+        try {
+            return LocalDate.parse(date.substring(0, 10));
+        } catch (DateTimeParseException e) {
+            return null;
+        }
+    }
+
+    static final class Rollup {
+        private final TreeMap<String, Long> foundPerWeek = new TreeMap<>();
+        private final TreeMap<String, Long> claimedPerWeek = new TreeMap<>();
+        private final long[] daysToClaim = new long[MAX_CLAIM_DAYS + 1];
+        private long claimsMeasured;
+        private final Map<String, Long> categories = new HashMap<>();
+        private final Map<String, Long> locations = new HashMap<>();
+        // Department to {items, claimed, turned over}
+        private final Map<String, long[]> departments = new HashMap<>();
+
+        void apply(Items item, int delta) {
+            boolean claimed = "Claimed".equalsIgnoreCase(item.getStatus());
+            LocalDate found = dayOf(item.getDateFound());
+            LocalDate claimedOn = claimed ? dayOf(item.getClaimedDate()) : null;
+
+            if (found != null) {
+                adjust(foundPerWeek, weekOf(found).toString(), delta);
+            }
+            if (claimedOn != null) {
+                adjust(claimedPerWeek, weekOf(claimedOn).toString(), delta);
+                if (found != null && !claimedOn.isBefore(found)) {
+                    daysToClaim[(int) Math.min(ChronoUnit.DAYS.between(found, claimedOn), MAX_CLAIM_DAYS)] += delta;
+                    claimsMeasured += delta;
+                }
+            }
+            adjust(categories, item.getCategory(), delta);
+            adjust(locations, item.getLocation(), delta);
+
+            String department = item.getDepartment();
+            if (department != null && !department.isEmpty()) {
+                long[] counts = departments.computeIfAbsent(department, key -> new long[3]);
+                counts[0] += delta;
+                counts[1] += claimed ? delta : 0;
+                counts[2] += item.getTurnoverDate() != null && !item.getTurnoverDate().isEmpty() ? delta : 0;
+                if (counts[0] <= 0) {
+                    departments.remove(department);
+                }
+            }
+        }
+
+        void add(Rollup other) {
+            other.foundPerWeek.forEach((week, count) -> foundPerWeek.merge(week, count, Long::sum));
+            other.claimedPerWeek.forEach((week, count) -> claimedPerWeek.merge(week, count, Long::sum));
+            for (int days = 0; days <= MAX_CLAIM_DAYS; days++) {
+                daysToClaim[days] += other.daysToClaim[days];
+            }
+            claimsMeasured += other.claimsMeasured;
+            other.categories.forEach((category, count) -> categories.merge(category, count, Long::sum));
+            other.locations.forEach((location, count) -> locations.merge(location, count, Long::sum));
+            other.departments.forEach((department, counts) -> {
+                long[] merged = departments.computeIfAbsent(department, key -> new long[3]);
+                for (int i = 0; i < merged.length; i++) {
+                    merged[i] += counts[i];
+                }
+            });
+        }
+
+        void clear() {
+            foundPerWeek.clear();
+            claimedPerWeek.clear();
+            Arrays.fill(daysToClaim, 0);
+            claimsMeasured = 0;
+            categories.clear();
+            locations.clear();
+            departments.clear();
+        }
+
+        // Lower median, read off the histogram
+        Double medianDaysToClaim() {
+            if (claimsMeasured <= 0) {
+                return null;
+            }
+            long position = (claimsMeasured + 1) / 2;
+            long seen = 0;
+            for (int days = 0; days <= MAX_CLAIM_DAYS; days++) {
+                seen += daysToClaim[days];
+                if (seen >= position) {
+                    return (double) days;
+                }
+            }
+            return (double) MAX_CLAIM_DAYS;
+        }
+
+        private static void adjust(Map<String, Long> counts, String key, int delta) {
+            if (key == null || key.isEmpty()) {
+                return;
+            }
+            long count = counts.getOrDefault(key, 0L) + delta;
+            if (count <= 0) {
+                counts.remove(key);
+            } else {
+                counts.put(key, count);
+            }
+        }
+    }
+}
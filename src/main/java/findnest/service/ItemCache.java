@@ -0,0 +1,172 @@
+package findnest.service;
+
+import findnest.model.Items;
+
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentNavigableMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+
+/**
+ * Resident copy of the {@code items} node, keyed by item id.
+ *
+ * Kept current by the persistent child listener registered in {@link ItemServiceImpl}
+ * and by write-through from the service's own writes. Entries are ordered by key so
+ * listings come back in the same push-key order Firebase uses.
+ *
+ * Every effective change is forwarded to the registered {@link ItemChangeListener}s.
+ * A write-through followed by the listener echo of the same value is only reported once.
+ *
+ * A reload reads a snapshot of the database while changes keep arriving. Keys changed after
+ * {@link #beginReload()} keep their cached value when the snapshot is applied, since the
+ * snapshot may predate those changes.
+ */
+@Component
+public class ItemCache {
+
+    private final ConcurrentNavigableMap<String, Items> items = new ConcurrentSkipListMap<>();
+    private final List<ItemChangeListener> listeners;
+    private volatile boolean loaded = false;
+    private volatile long version = 0;
+    // Reloads whose snapshot is still being read
+    private final List<Reload> reloads = new ArrayList<>();
+
+    public ItemCache(List<ItemChangeListener> listeners) {
+        this.listeners = listeners;
+    }
+
+    // True once the initial load from Firebase has completed
+    public boolean isLoaded() {
+        return loaded;
+    }
+
+    public void markLoaded() {
+        loaded = true;
+    }
+
+    // Called when the listener is cancelled. The contents are dropped, since removals can no longer
+    // be seen; reads fall back to storage until a new listener has loaded the cache again.
+    public synchronized void invalidate() {
+        loaded = false;
+        if (!items.isEmpty()) {
+            items.clear();
+            version++;
+            listeners.forEach(listener -> listener.onItemsReset(List.of()));
+        }
+    }
+
+    public Items get(String id) {
+        return items.get(id);
+    }
+
+    public List<Items> getAll() {
+        return new ArrayList<>(items.values());
+    }
+
+    // Up to limit items with keys strictly after the cursor, in key order
+    public Map<String, Items> getPage(String cursor, int limit) {
+        Map<String, Items> tail = cursor == null ? items : items.tailMap(cursor, false);
+        Map<String, Items> page = new LinkedHashMap<>();
+        for (Map.Entry<String, Items> entry : tail.entrySet()) {
+            if (page.size() == limit) {
+                break;
+            }
+            page.put(entry.getKey(), entry.getValue());
+        }
+        return page;
+    }
+
+    public int size() {
+        return items.size();
+    }
+
+    // Incremented on every effective change, so equal versions mean equal contents
+    public long getVersion() {
+        return version;
+    }
+
+    public synchronized void put(String id, Items item) {
+        if (id == null || item == null) {
+            return;
+        }
+        reloads.forEach(reload -> reload.changed.add(id));
+        Items previous = items.put(id, item);
+        if (!Objects.equals(previous, item)) {
+            version++;
+            listeners.forEach(listener -> listener.onItemChanged(previous, item));
+        }
+    }
+
+    public synchronized void remove(String id) {
+        if (id == null) {
+            return;
+        }
+        reloads.forEach(reload -> reload.changed.add(id));
+        Items previous = items.remove(id);
+        if (previous != null) {
+            version++;
+            listeners.forEach(listener -> listener.onItemChanged(previous, null));
+        }
+    }
+
+    // Called before the snapshot for reset() is requested
+    public synchronized Reload beginReload() {
+        Reload reload = new Reload();
+        reloads.add(reload);
+        return reload;
+    }
+
+    public void reset(Map<String, Items> freshItems) {
+        reset(beginReload(), freshItems);
+    }
+
+    // Replace the cache with a fresh read of the database, keeping keys changed since the read
+    // began; the version only moves if the contents differ. Loaded state is left to the listener.
+    public synchronized void reset(Reload reload, Map<String, Items> freshItems) {
+        reloads.remove(reload);
+        Map<String, Items> fresh = new TreeMap<>();
+        freshItems.forEach((id, item) -> {
+            if (id != null && item != null) {
+                fresh.put(id, item);
+            }
+        });
+        for (String id : reload.changed) {
+            Items current = items.get(id);
+            if (current != null) {
+                fresh.put(id, current);
+            } else {
+                fresh.remove(id);
+            }
+        }
+        Collection<Items> values = items.values();
+        if (!items.equals(fresh)) {
+            items.clear();
+            items.putAll(fresh);
+            version++;
+            listeners.forEach(listener -> listener.onItemsReset(values));
+        } else {
+            listeners.forEach(listener -> listener.onItemsReconciled(values));
+        }
+    }
+
+    // A reload dropped without calling reset(), e.g. because its read failed
+    public synchronized void abandon(Reload reload) {
+        reloads.remove(reload);
+    }
+
+    public static final class Reload {
+        private final Set<String> changed = new HashSet<>();
+
+        private Reload() {
+        }
+    }
+}
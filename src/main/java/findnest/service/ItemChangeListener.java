@@ -0,0 +1,23 @@
+package findnest.service;
+
+import findnest.model.Items;
+
+import java.util.Collection;
+
+/**
+ * Receives changes to the {@code items} node as they are applied to the {@link ItemCache}.
+ */
+public interface ItemChangeListener {
+
+    // previous is null for an added item, current is null for a removed one
+    void onItemChanged(Items previous, Items current);
+
+    // Called after the cache is reloaded from the database
+    void onItemsReset(Collection<Items> items);
+
+    // Called instead of onItemsReset when the reload found the cache already matching the database;
+    // derived state is still rebuilt by default, which corrects any drift
+    default void onItemsReconciled(Collection<Items> items) {
+        onItemsReset(items);
+    }
+}
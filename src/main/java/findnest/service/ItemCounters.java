@@ -0,0 +1,84 @@
+package findnest.service;
+
+import findnest.model.ItemCounts;
+import findnest.model.Items;
+
+import org.springframework.stereotype.Component;
+
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * Status, category and department counts, maintained incrementally from cache changes
+ * so the count endpoints never have to scan the {@code items} node.
+ */
+@Component
+public class ItemCounters implements ItemChangeListener {
+
+    private long totalCount;
+    private long availableCount;
+    private long claimedCount;
+    private final Map<String, Long> categoryCounts = new HashMap<>();
+    private final Map<String, Long> departmentCounts = new HashMap<>();
+
+    @Override
+    public synchronized void onItemChanged(Items previous, Items current) {
+        if (previous != null) {
+            apply(previous, -1);
+        }
+        if (current != null) {
+            apply(current, 1);
+        }
+    }
+
+    @Override
+    public synchronized void onItemsReset(Collection<Items> items) {
+        totalCount = 0;
+        availableCount = 0;
+        claimedCount = 0;
+        categoryCounts.clear();
+        departmentCounts.clear();
+        for (Items item : items) {
+            apply(item, 1);
+        }
+    }
+
+    // Same shape as the original countAllItems response
+    public synchronized Items getStatusCounts() {
+        Items itemCounts = new Items();
+        itemCounts.setTotalCount(totalCount);
+        itemCounts.setAvailableCount(availableCount);
+        itemCounts.setClaimedCount(claimedCount);
+        return itemCounts;
+    }
+
+    public synchronized ItemCounts getCounts() {
+        return new ItemCounts(totalCount, availableCount, claimedCount,
+                new TreeMap<>(categoryCounts), new TreeMap<>(departmentCounts));
+    }
+
+    private void apply(Items item, int delta) {
+        totalCount += delta;
+        if ("Available".equalsIgnoreCase(item.getStatus())) {
+            availableCount += delta;
+        } else if ("Claimed".equalsIgnoreCase(item.getStatus())) {
+            claimedCount += delta;
+        }
+        adjust(categoryCounts, item.getCategory(), delta);
+        adjust(departmentCounts, item.getDepartment(), delta);
+    }
+
+    private static void adjust(Map<String, Long> counts, String key, int delta) {
+        if (key == null || key.isEmpty()) {
+            return;
+        }
+        long count = counts.getOrDefault(key, 0L) + delta;
+        if (count <= 0) {
+            counts.remove(key);
+        } else {
+            counts.put(key, count);
+        }
+    }
+}
@@ -0,0 +1,174 @@
+package findnest.service;
+
+import findnest.model.Items;
+
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.MediaType;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.io.IOException;
+import java.util.ArrayDeque;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Map;
+import java.util.Queue;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Fans item changes out to Server-Sent Events clients, so browsers are pushed deltas from the
+ * one shared listener on {@code items} instead of polling.
+ *
+ * Events are {@code added}, {@code changed} and {@code removed} with the item (or its id),
+ * {@code counts} with the current breakdown, and {@code resync} when the client should reload.
+ * Each client has a bounded queue drained on its own task; a client that falls more than
+ * queueSize events behind has its queue replaced by a single {@code resync}, so a slow browser
+ * never holds up the cache or the other clients.
+ */
+@Component
+public class ItemEventBroadcaster implements ItemChangeListener {
+
+    private final Set<Client> clients = ConcurrentHashMap.newKeySet();
+    private final ItemCounters itemCounters;
+    private final ExecutorService sendExecutor;
+    private final int queueSize;
+    private final long timeoutMs;
+    private final AtomicLong resyncs = new AtomicLong();
+
+    public ItemEventBroadcaster(ItemCounters itemCounters,
+                                @Qualifier("itemStreamExecutor") ExecutorService sendExecutor,
+                                @Value("${findnest.items.stream.queue-size:256}") int queueSize,
+                                @Value("${findnest.items.stream.timeout-ms:0}") long timeoutMs) {
+        this.itemCounters = itemCounters;
+        this.sendExecutor = sendExecutor;
+        this.queueSize = queueSize;
+        this.timeoutMs = timeoutMs;
+    }
+
+    // New stream starting with the current counts; a timeout of 0 keeps it open until the client leaves
+    public SseEmitter subscribe() {
+        SseEmitter emitter = new SseEmitter(timeoutMs);
+        Client client = new Client(emitter);
+        emitter.onCompletion(() -> clients.remove(client));
+        emitter.onTimeout(() -> clients.remove(client));
+        emitter.onError(error -> clients.remove(client));
+        clients.add(client);
+        client.offer(null, true);
+        return emitter;
+    }
+
+    @Override
+    public void onItemChanged(Items previous, Items current) {
+        Event event;
+        if (current == null) {
+            event = new Event("removed", Collections.singletonMap("id", previous.getId()));
+        } else {
+            event = new Event(previous == null ? "added" : "changed", current);
+        }
+        clients.forEach(client -> client.offer(event, true));
+    }
+
+    @Override
+    public void onItemsReset(Collection<Items> items) {
+        Event event = new Event("resync", Map.of("count", items.size()));
+        clients.forEach(client -> client.offer(event, true));
+    }
+
+    // Clients already hold what the reconcile found, so there is nothing to tell them
+    @Override
+    public void onItemsReconciled(Collection<Items> items) {
+    }
+
+    // Keeps idle connections open through proxies and detects clients that have gone away
+    @Scheduled(fixedRateString = "${findnest.items.stream.heartbeat-ms:15000}")
+    public void heartbeat() {
+        clients.forEach(client -> client.offer(Event.HEARTBEAT, false));
+    }
+
+    public int getClientCount() {
+        return clients.size();
+    }
+
+    public long getResyncCount() {
+        return resyncs.get();
+    }
+
+    private record Event(String name, Object data) {
+        static final Event HEARTBEAT = new Event(null, null);
+        static final Event COUNTS = new Event("counts", null);
+    }
+
+    private final class Client {
+        private final SseEmitter emitter;
+        private final Queue<Event> queue = new ArrayDeque<>();
+        private boolean countsPending;
+        private boolean draining;
+
+        Client(SseEmitter emitter) {
+            this.emitter = emitter;
+        }
+
+        // Counts are coalesced and read when sent, so a burst of changes yields one counts event
+        synchronized void offer(Event event, boolean withCounts) {
+            if (event != null) {
+                if (queue.size() >= queueSize) {
+                    queue.clear();
+                    queue.add(new Event("resync", Map.of("reason", "client fell behind")));
+                    resyncs.incrementAndGet();
+                } else {
+                    queue.add(event);
+                }
+            }
+            countsPending |= withCounts;
+            if (!draining) {
+                draining = true;
+                sendExecutor.execute(this::drain);
+            }
+        }
+
+        private void drain() {
+            while (true) {
+                Event event;
+                synchronized (this) {
+                    event = queue.poll();
+                    if (event == null && countsPending) {
+                        countsPending = false;
+                        event = Event.COUNTS;
+                    }
+                    if (event == null) {
+                        draining = false;
+                        return;
+                    }
+                }
+                if (event == Event.COUNTS) {
+                    event = new Event("counts", itemCounters.getCounts());
+                }
+                try {
+                    send(event);
+                } catch (IOException | IllegalStateException e) {
+                    // The client has disconnected; stop queueing for it
+                    clients.remove(this);
+                    emitter.completeWithError(e);
+                    synchronized (this) {
+                        queue.clear();
+                        draining = false;
+                    }
+                    return;
+                }
+            }
+        }
+
+        private void send(Event event) throws IOException {
+            if (event == Event.HEARTBEAT) {
+                emitter.send(SseEmitter.event().comment("heartbeat"));
+            } else {
+                emitter.send(SseEmitter.event().name(event.name()).data(event.data(), MediaType.APPLICATION_JSON));
+            }
+        }
+    }
+}
@@ -0,0 +1,120 @@
+package findnest.service;
+
+import findnest.model.ItemFilter;
+import findnest.model.Items;
+
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeSet;
+
+/**
+ * Inverted indexes over the filterable {@link Items} fields, mapping each value to the ids
+ * of the items that carry it. Values are matched case-insensitively, like {@link ItemFilter}.
+ */
+@Component
+public class ItemIndex implements ItemChangeListener {
+
+    private static final String CATEGORY = "category";
+    private static final String STATUS = "status";
+    private static final String DEPARTMENT = "department";
+    private static final String LOCATION = "location";
+
+    private final Map<String, Map<String, Set<String>>> postings = new HashMap<>();
+
+    public ItemIndex() {
+        for (String field : List.of(CATEGORY, STATUS, DEPARTMENT, LOCATION)) {
+            postings.put(field, new HashMap<>());
+        }
+    }
+
+    @Override
+    public synchronized void onItemChanged(Items previous, Items current) {
+        if (previous != null) {
+            index(previous, false);
+        }
+        if (current != null) {
+            index(current, true);
+        }
+    }
+
+    @Override
+    public synchronized void onItemsReset(Collection<Items> items) {
+        postings.values().forEach(Map::clear);
+        for (Items item : items) {
+            index(item, true);
+        }
+    }
+
+    /**
+     * Ids of the items matching every indexed field set on the filter, in key order.
+     * Returns null when the filter sets none of the indexed fields.
+     */
+    public synchronized Set<String> find(ItemFilter filter) {
+        List<Set<String>> lists = new ArrayList<>();
+        addPostingList(lists, CATEGORY, filter.getCategory());
+        addPostingList(lists, STATUS, filter.getStatus());
+        addPostingList(lists, DEPARTMENT, filter.getDepartment());
+        addPostingList(lists, LOCATION, filter.getLocation());
+        if (lists.isEmpty()) {
+            return null;
+        }
+
+        // Intersect starting from the shortest list
+        lists.sort(Comparator.comparingInt(Set::size));
+        Set<String> result = new TreeSet<>(lists.get(0));
+        for (int i = 1; i < lists.size() && !result.isEmpty(); i++) {
+            result.retainAll(lists.get(i));
+        }
+        return result;
+    }
+
+    private void addPostingList(List<Set<String>> lists, String field, String value) {
+        if (value == null || value.isEmpty()) {
+            return;
+        }
+        lists.add(postings.get(field).getOrDefault(normalize(value), Set.of()));
+    }
+
+    private void index(Items item, boolean add) {
+        String id = item.getId();
+        if (id == null) {
+            return;
+        }
+        update(CATEGORY, item.getCategory(), id, add);
+        update(STATUS, item.getStatus(), id, add);
+        update(DEPARTMENT, item.getDepartment(), id, add);
+        update(LOCATION, item.getLocation(), id, add);
+    }
+
+    private void update(String field, String value, String id, boolean add) {
+        if (value == null || value.isEmpty()) {
+            return;
+        }
+        Map<String, Set<String>> values = postings.get(field);
+        String key = normalize(value);
+        if (add) {
+            values.computeIfAbsent(key, k -> new HashSet<>()).add(id);
+        } else {
+            Set<String> ids = values.get(key);
+            if (ids != null) {
+                ids.remove(id);
+                if (ids.isEmpty()) {
+                    values.remove(key);
+                }
+            }
+        }
+    }
+
+    private static String normalize(String value) {
+        return value.trim().toLowerCase(Locale.ROOT);
+    }
+}
@@ -0,0 +1,8 @@
+package findnest.service;
+
+public class ItemNotFoundException extends RuntimeException {
+
+    public ItemNotFoundException(String id) {
+        super("Item not found: " + id);
+    }
+}
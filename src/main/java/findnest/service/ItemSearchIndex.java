@@ -0,0 +1,167 @@
+package findnest.service;
+
+import findnest.model.Items;
+
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * In-process full-text index over item name, description, location and finder name.
+ *
+ * Terms are kept in a sorted map so a query token also matches every indexed term it is a
+ * prefix of. Results are ranked first by how many query tokens matched, then by a tf-idf
+ * style score weighted by the field the term came from.
+ */
+@Component
+public class ItemSearchIndex implements ItemChangeListener {
+
+    private static final double ITEM_WEIGHT = 3.0;
+    private static final double LOCATION_WEIGHT = 2.0;
+    private static final double FOUND_BY_WEIGHT = 1.5;
+    private static final double DESCRIPTION_WEIGHT = 1.0;
+    private static final double PREFIX_PENALTY = 0.5;
+    private static final int MAX_PREFIX_EXPANSIONS = 64;
+
+    // term -> (item id -> field-weighted term frequency)
+    private final NavigableMap<String, Map<String, Double>> postings = new TreeMap<>();
+    // item id -> terms indexed for it, so the item can be removed again
+    private final Map<String, Set<String>> documentTerms = new HashMap<>();
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+
+    @Override
+    public void onItemChanged(Items previous, Items current) {
+        lock.writeLock().lock();
+        try {
+            if (previous != null) {
+                removeDocument(previous.getId());
+            }
+            if (current != null) {
+                addDocument(current);
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    @Override
+    public void onItemsReset(Collection<Items> items) {
+        lock.writeLock().lock();
+        try {
+            postings.clear();
+            documentTerms.clear();
+            for (Items item : items) {
+                addDocument(item);
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    // Ids of the best matching items, best first
+    public List<String> search(String query, int limit) {
+        List<String> queryTokens = new ArrayList<>(new LinkedHashSet<>(tokenize(query)));
+        if (queryTokens.isEmpty()) {
+            return new ArrayList<>();
+        }
+
+        Map<String, Double> scores = new HashMap<>();
+        Map<String, Integer> matchedTokens = new HashMap<>();
+        lock.readLock().lock();
+        try {
+            int documentCount = Math.max(1, documentTerms.size());
+            for (String token : queryTokens) {
+                // Best contribution of this token per item, across exact and prefix matches
+                Map<String, Double> tokenScores = new HashMap<>();
+                int expansions = 0;
+                for (Map.Entry<String, Map<String, Double>> entry
+                        : postings.subMap(token, true, token + Character.MAX_VALUE, false).entrySet()) {
+                    if (expansions++ == MAX_PREFIX_EXPANSIONS) {
+                        break;
+                    }
+                    boolean exact = entry.getKey().equals(token);
+                    Map<String, Double> documents = entry.getValue();
+                    double idf = Math.log(1.0 + (double) documentCount / documents.size());
+                    for (Map.Entry<String, Double> document : documents.entrySet()) {
+                        double score = document.getValue() * idf * (exact ? 1.0 : PREFIX_PENALTY);
+                        tokenScores.merge(document.getKey(), score, Math::max);
+                    }
+                }
+                tokenScores.forEach((id, score) -> {
+                    scores.merge(id, score, Double::sum);
+                    matchedTokens.merge(id, 1, Integer::sum);
+                });
+            }
+        } finally {
+            lock.readLock().unlock();
+        }
+
+        List<String> ranked = new ArrayList<>(scores.keySet());
+        ranked.sort((a, b) -> {
+            int byMatches = Integer.compare(matchedTokens.get(b), matchedTokens.get(a));
+            return byMatches != 0 ? byMatches : Double.compare(scores.get(b), scores.get(a));
+        });
+        return ranked.size() > limit ? new ArrayList<>(ranked.subList(0, limit)) : ranked;
+    }
+
+    private void addDocument(Items item) {
+        String id = item.getId();
+        if (id == null) {
+            return;
+        }
+        Map<String, Double> termWeights = new HashMap<>();
+        addField(termWeights, item.getItem(), ITEM_WEIGHT);
+        addField(termWeights, item.getLocation(), LOCATION_WEIGHT);
+        addField(termWeights, item.getFoundByName(), FOUND_BY_WEIGHT);
+        addField(termWeights, item.getDescription(), DESCRIPTION_WEIGHT);
+
+        termWeights.forEach((term, weight) -> postings.computeIfAbsent(term, t -> new HashMap<>()).put(id, weight));
+        documentTerms.put(id, termWeights.keySet());
+    }
+
+    private void removeDocument(String id) {
+        Set<String> terms = id == null ? null : documentTerms.remove(id);
+        if (terms == null) {
+            return;
+        }
+        for (String term : terms) {
+            Map<String, Double> documents = postings.get(term);
+            if (documents != null) {
+                documents.remove(id);
+                if (documents.isEmpty()) {
+                    postings.remove(term);
+                }
+            }
+        }
+    }
+
+    private static void addField(Map<String, Double> termWeights, String text, double weight) {
+        for (String token : tokenize(text)) {
+            termWeights.merge(token, weight, Double::sum);
+        }
+    }
+
+    static List<String> tokenize(String text) {
+        List<String> tokens = new ArrayList<>();
+        if (text == null) {
+            return tokens;
+        }
+        for (String token : text.toLowerCase(Locale.ROOT).split("[^\\p{L}\\p{Nd}]+")) {
+            if (!token.isEmpty()) {
+                tokens.add(token);
+            }
+        }
+        return tokens;
+    }
+}
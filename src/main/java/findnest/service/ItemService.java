@@ -1,8 +1,18 @@
 package findnest.service;
 
+import findnest.model.BulkArchiveResult;
+import findnest.model.BulkIngestResult;
+import findnest.model.ClaimResult;
+import findnest.model.ItemCounts;
+import findnest.model.ItemFilter;
+import findnest.model.ItemPage;
+import findnest.model.ItemStats;
 import findnest.model.Items;
+import java.io.IOException;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.function.Consumer;
 
 public interface ItemService {
     Items saveItem(Items item);
@@ -12,10 +22,36 @@ public interface ItemService {
     void deleteItem(String id);
     void saveToItemsHistory(Items item);
     List<Items> getAllItemsFromHistory();
+    void exportItems(boolean fromHistory, ItemFilter filter, Consumer<List<Items>> pageConsumer) throws IOException;
     Items getItemFromHistoryById(String id); 
     Items countAllItems();
     Items patchItem(String id, Map<String, Object> updates);
 
     Items updateTurnoverDetails(String id, String turnoverDate, String turnoverPerson, String department);
 
+    // Non-blocking variants; missing items complete with ItemNotFoundException
+    CompletableFuture<Items> saveItemAsync(Items item);
+    CompletableFuture<BulkIngestResult> saveItemsAsync(List<Items> items);
+    CompletableFuture<Items> getItemByIdAsync(String id);
+    CompletableFuture<List<Items>> getAllItemsAsync();
+    CompletableFuture<ItemPage> getItemsPageAsync(String cursor, int limit);
+    CompletableFuture<List<Items>> findItemsAsync(ItemFilter filter);
+    CompletableFuture<List<Items>> searchItemsAsync(String query, int limit);
+    CompletableFuture<Items> updateItemAsync(String id, Items item);
+    CompletableFuture<Void> deleteItemAsync(String id);
+    CompletableFuture<BulkArchiveResult> archiveItemsAsync(List<String> ids);
+    CompletableFuture<List<Items>> getAllItemsFromHistoryAsync();
+    CompletableFuture<ItemPage> getItemsFromHistoryPageAsync(String cursor, int limit);
+    CompletableFuture<Items> getItemFromHistoryByIdAsync(String id);
+    CompletableFuture<Items> countAllItemsAsync();
+    CompletableFuture<ItemCounts> countItemsBreakdownAsync();
+    CompletableFuture<ItemStats> getItemStatsAsync(int weeks, int top);
+    CompletableFuture<Items> patchItemAsync(String id, Map<String, Object> updates);
+
+    // Version for conditional GETs of items; null while the cache is not loaded
+    String getItemsVersion();
+
+    CompletableFuture<ClaimResult> claimItemAsync(String id, Map<String, Object> updates);
+    CompletableFuture<Items> updateTurnoverDetailsAsync(String id, String turnoverDate, String turnoverPerson, String department);
+
 }
\ No newline at end of file
@@ -1,34 +1,229 @@
 package findnest.service;
 
-import com.google.firebase.database.DataSnapshot;
-import com.google.firebase.database.DatabaseError;
-import com.google.firebase.database.DatabaseReference;
-import com.google.firebase.database.FirebaseDatabase;
-import com.google.firebase.database.ValueEventListener;
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import findnest.model.BulkArchiveResult;
+import findnest.model.BulkIngestResult;
+import findnest.model.BulkItemResult;
+import findnest.model.ClaimResult;
+import findnest.model.ItemCounts;
+import findnest.model.ItemFilter;
+import findnest.model.ItemPage;
+import findnest.model.ItemStats;
 import findnest.model.Items;
 
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
 import org.springframework.stereotype.Service;
 
+import java.io.IOException;
+import java.io.InterruptedIOException;
 import java.time.Instant;
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
 import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.function.Consumer;
+import java.util.function.Supplier;
 
 @Service
 public class ItemServiceImpl implements ItemService {
 
-    private final DatabaseReference dbRef;
-    private final DatabaseReference historyDbRef;
+    private static final Logger log = LoggerFactory.getLogger(ItemServiceImpl.class);
+
+    private static final String ITEMS = "items";
+    private static final String HISTORY = "ItemsHistory";
+    private static final int MAX_PAGE_SIZE = 500;
+    private static final int EXPORT_CHUNK_SIZE = 200;
+    private static final int ARCHIVE_BATCH_SIZE = 500;
+    private static final int INGEST_BATCH_SIZE = 500;
+    private static final long WATCH_RETRY_SECONDS = 5;
+
+    private static final ObjectMapper FIELD_MAPPER = new ObjectMapper();
+    private static final TypeReference<Map<String, Object>> FIELD_MAP = new TypeReference<>() {};
+
+    private final String startupId = Long.toString(System.currentTimeMillis(), 36);
+
+    private final StorageBackend storage;
+    private final ItemCache itemCache;
+    private final ItemCounters itemCounters;
+    private final ItemIndex itemIndex;
+    private final ItemSearchIndex itemSearchIndex;
+    private final HistoryArchive historyArchive;
+    private final ItemAnalytics itemAnalytics;
+    private final ExecutorService callbackExecutor;
+    private final ThreadingMetrics threadingMetrics;
+    private final long timeoutMs;
+    // The scheduled history walks return before they finish; these keep a slow one from overlapping its next run
+    private final AtomicBoolean compactingHistory = new AtomicBoolean();
+    private final AtomicBoolean rebuildingHistoryStats = new AtomicBoolean();
+    // Bumped when the cache listener is cancelled, so late callbacks from the old one are ignored
+    private final AtomicInteger watchGeneration = new AtomicInteger();
+
+    public ItemServiceImpl(StorageBackend storage, ItemCache itemCache, ItemCounters itemCounters, ItemIndex itemIndex,
+                           ItemSearchIndex itemSearchIndex, HistoryArchive historyArchive, ItemAnalytics itemAnalytics,
+                           @Qualifier("firebaseCallbackExecutor") ExecutorService firebaseCallbackExecutor,
+                           ThreadingMetrics threadingMetrics,
+                           @Value("${findnest.firebase.timeout-ms:10000}") long timeoutMs) {
+        this.storage = storage;
+        this.itemCache = itemCache;
+        this.itemCounters = itemCounters;
+        this.itemIndex = itemIndex;
+        this.itemSearchIndex = itemSearchIndex;
+        this.historyArchive = historyArchive;
+        this.itemAnalytics = itemAnalytics;
+        this.callbackExecutor = firebaseCallbackExecutor;
+        this.threadingMetrics = threadingMetrics;
+        this.timeoutMs = timeoutMs;
+        startCacheSync();
+    }
+
+    // Keep the item cache in sync with the `items` node through one persistent listener
+    private void startCacheSync() {
+        int generation = watchGeneration.get();
+        storage.watch(ITEMS, Items.class, new StorageBackend.ChildWatcher<Items>() {
+            @Override
+            public void onChildChanged(String key, Items item) {
+                itemCache.put(key, item);
+            }
+
+            @Override
+            public void onChildRemoved(String key) {
+                itemCache.remove(key);
+            }
+
+            @Override
+            public void onLoaded() {
+                if (watchGeneration.get() != generation) {
+                    return;
+                }
+                itemCache.markLoaded();
+                log.info("Item cache loaded with {} items.", itemCache.size());
+            }
+
+            // The cache is emptied and rebuilt by a new listener, which delivers every item again.
+            // Both halves of a watch can report the same cancellation; only the first acts on it.
+            @Override
+            public void onCancelled(Exception error) {
+                if (!watchGeneration.compareAndSet(generation, generation + 1)) {
+                    return;
+                }
+                log.warn("Item cache listener cancelled", error);
+                itemCache.invalidate();
+                CompletableFuture.delayedExecutor(WATCH_RETRY_SECONDS, TimeUnit.SECONDS, callbackExecutor)
+                        .execute(ItemServiceImpl.this::startCacheSync);
+            }
+        });
+    }
 
-    public ItemServiceImpl() {
-        this.dbRef = FirebaseDatabase.getInstance().getReference("items");
-        this.historyDbRef = FirebaseDatabase.getInstance().getReference("ItemsHistory");
+    // Periodically reload the cache from the database to correct any drift in the counters
+    @Scheduled(initialDelayString = "${findnest.items.reconcile-interval-ms:600000}",
+            fixedDelayString = "${findnest.items.reconcile-interval-ms:600000}")
+    public void reconcileItems() {
+        reloadItemCache();
     }
 
+    private CompletableFuture<Void> reloadItemCache() {
+        ItemCache.Reload reload = itemCache.beginReload();
+        return withTimeout(storage.getChildren(ITEMS, Items.class)).handle((freshItems, error) -> {
+            if (error != null) {
+                itemCache.abandon(reload);
+                log.error("Error reconciling item cache", error);
+                throw new CompletionException(error);
+            }
+            itemCache.reset(reload, freshItems);
+            log.info("Item cache reconciled with {} items.", freshItems.size());
+            return null;
+        });
+    }
+
+    // Writes reach the cache only once they succeed, so a failed write never shows up in reads
     @Override
     public Items saveItem(Items item) {
-        String id = dbRef.push().getKey();
+        prepareNewItem(item);
+        storage.set(itemPath(item.getId()), item).thenRun(() -> itemCache.put(item.getId(), item));
+
+        return item;
+    }
+
+    @Override
+    public CompletableFuture<Items> saveItemAsync(Items item) {
+        prepareNewItem(item);
+        return withTimeout(storage.set(itemPath(item.getId()), item)).thenApply(ignored -> {
+            itemCache.put(item.getId(), item);
+            return item;
+        });
+    }
+
+    // Keys are generated locally and the items committed in bounded multi-path writes,
+    // so a large import costs one round-trip per batch rather than one per item
+    @Override
+    public CompletableFuture<BulkIngestResult> saveItemsAsync(List<Items> items) {
+        BulkItemResult[] results = new BulkItemResult[items.size()];
+        List<CompletableFuture<Void>> writes = new ArrayList<>();
+        Map<Integer, Items> batch = new LinkedHashMap<>();
+        for (int i = 0; i < items.size(); i++) {
+            Items item = items.get(i);
+            if (item == null) {
+                results[i] = new BulkItemResult(i, null, false, "Missing or unreadable item");
+                continue;
+            }
+            prepareNewItem(item);
+            batch.put(i, item);
+            if (batch.size() == INGEST_BATCH_SIZE) {
+                writes.add(writeIngestBatch(batch, results));
+                batch = new LinkedHashMap<>();
+            }
+        }
+        if (!batch.isEmpty()) {
+            writes.add(writeIngestBatch(batch, results));
+        }
+
+        return CompletableFuture.allOf(writes.toArray(new CompletableFuture[0])).thenApply(ignored -> {
+            int saved = 0;
+            for (BulkItemResult result : results) {
+                if (result.isSaved()) {
+                    saved++;
+                }
+            }
+            return new BulkIngestResult(saved, results.length - saved, Arrays.asList(results));
+        });
+    }
+
+    // A failed batch marks each of its items failed instead of failing the whole ingest
+    private CompletableFuture<Void> writeIngestBatch(Map<Integer, Items> batch, BulkItemResult[] results) {
+        Map<String, Object> updates = new LinkedHashMap<>();
+        batch.values().forEach(item -> updates.put(item.getId(), item));
+        return withTimeout(storage.update(ITEMS, updates)).handle((ignored, error) -> {
+            batch.forEach((index, item) -> {
+                if (error == null) {
+                    itemCache.put(item.getId(), item);
+                    results[index] = new BulkItemResult(index, item.getId(), true, null);
+                } else {
+                    results[index] = new BulkItemResult(index, item.getId(), false, unwrap(error).getMessage());
+                }
+            });
+            return null;
+        });
+    }
+
+    private void prepareNewItem(Items item) {
+        String id = storage.newKey(ITEMS);
         item.setId(id);
         String timestamp = Instant.now().toString();
         item.setCreatedAt(timestamp);
@@ -42,343 +237,691 @@ public class ItemServiceImpl implements ItemService {
         if (item.getStaffInvolved() == null || item.getStaffInvolved().isEmpty()) {
             item.setStaffInvolved("Unassigned");
         }
+    }
 
-        dbRef.child(id).setValueAsync(item);
+    @Override
+    public Items getItemById(String id) {
+        return await(getItemByIdAsync(id), null);
+    }
 
-        return item;
+    @Override
+    public CompletableFuture<Items> getItemByIdAsync(String id) {
+        if (itemCache.isLoaded()) {
+            Items item = itemCache.get(id);
+            return item != null
+                    ? CompletableFuture.completedFuture(item)
+                    : CompletableFuture.failedFuture(new ItemNotFoundException(id));
+        }
+        return readItem(itemPath(id)).thenApply(item -> requireFound(item, id));
     }
 
     @Override
-    public Items getItemById(String id) {
-        CompletableFuture<Items> future = new CompletableFuture<>();
-        dbRef.child(id).addListenerForSingleValueEvent(new ValueEventListener() {
-            @Override
-            public void onDataChange(DataSnapshot snapshot) {
-                if (snapshot.exists()) {
-                    future.complete(snapshot.getValue(Items.class));
-                } else {
-                    future.complete(null);
-                }
-            }
+    public List<Items> getAllItems() {
+        return await(getAllItemsAsync(), new ArrayList<>());
+    }
 
-            @Override
-            public void onCancelled(DatabaseError error) {
-                future.completeExceptionally(error.toException());
-            }
-        });
+    @Override
+    public CompletableFuture<List<Items>> getAllItemsAsync() {
+        if (itemCache.isLoaded()) {
+            return CompletableFuture.completedFuture(itemCache.getAll());
+        }
+        return readItems(ITEMS);
+    }
 
-        try {
-            return future.get();
-        } catch (Exception e) {
-            e.printStackTrace();
-            return null;
+    @Override
+    public CompletableFuture<ItemPage> getItemsPageAsync(String cursor, int limit) {
+        int pageSize = clampPageSize(limit);
+        if (itemCache.isLoaded()) {
+            return CompletableFuture.completedFuture(toPage(itemCache.getPage(cursor, pageSize + 1), pageSize));
         }
+        return readPage(ITEMS, cursor, pageSize);
     }
 
+    // Indexed fields are resolved through posting lists; the date range is checked per match
     @Override
-    public List<Items> getAllItems() {
-        CompletableFuture<List<Items>> future = new CompletableFuture<>();
-        dbRef.addListenerForSingleValueEvent(new ValueEventListener() {
-            @Override
-            public void onDataChange(DataSnapshot snapshot) {
-                List<Items> itemsList = new ArrayList<>();
-                if (snapshot.exists()) {
-                    for (DataSnapshot childSnapshot : snapshot.getChildren()) {
-                        Items item = childSnapshot.getValue(Items.class);
-                        itemsList.add(item);
-                    }
-                }
-                future.complete(itemsList);
+    public CompletableFuture<List<Items>> findItemsAsync(ItemFilter filter) {
+        if (!itemCache.isLoaded()) {
+            return readItems(ITEMS).thenApply(items -> filterItems(items, filter));
+        }
+
+        Set<String> ids = itemIndex.find(filter);
+        if (ids == null) {
+            return CompletableFuture.completedFuture(filterItems(itemCache.getAll(), filter));
+        }
+        List<Items> matching = new ArrayList<>(ids.size());
+        for (String id : ids) {
+            Items item = itemCache.get(id);
+            if (filter.matches(item)) {
+                matching.add(item);
             }
+        }
+        return CompletableFuture.completedFuture(matching);
+    }
 
-            @Override
-            public void onCancelled(DatabaseError error) {
-                future.completeExceptionally(error.toException());
+    @Override
+    public CompletableFuture<List<Items>> searchItemsAsync(String query, int limit) {
+        // The search index is fed from the cache, so make sure it has been loaded
+        return cacheReady().thenApply(ignored -> {
+            List<Items> results = new ArrayList<>();
+            for (String id : itemSearchIndex.search(query, clampPageSize(limit))) {
+                Items item = itemCache.get(id);
+                if (item != null) {
+                    results.add(item);
+                }
             }
+            return results;
         });
+    }
 
-        try {
-            return future.get();
-        } catch (Exception e) {
-            e.printStackTrace();
-            return new ArrayList<>();
+    private static List<Items> filterItems(List<Items> items, ItemFilter filter) {
+        List<Items> matching = new ArrayList<>();
+        for (Items item : items) {
+            if (filter.matches(item)) {
+                matching.add(item);
+            }
         }
+        return matching;
     }
 
     @Override
     public Items updateItem(String id, Items updatedItem) {
-        CompletableFuture<Items> future = new CompletableFuture<>();
+        return await(updateItemAsync(id, updatedItem), null);
+    }
 
-        dbRef.child(id).addListenerForSingleValueEvent(new ValueEventListener() {
-            @Override
-            public void onDataChange(DataSnapshot snapshot) {
-                if (snapshot.exists()) {
-                    Items existingItem = snapshot.getValue(Items.class);
-                    if (existingItem != null) {
-                        // Preserve fields that are not being updated
-                        if (updatedItem.getTurnoverDate() == null) {
-                            updatedItem.setTurnoverDate(existingItem.getTurnoverDate());
-                        }
-                        if (updatedItem.getTurnoverPerson() == null) {
-                            updatedItem.setTurnoverPerson(existingItem.getTurnoverPerson());
-                        }
-                        if (updatedItem.getFoundByName() == null) {
-                            updatedItem.setFoundByName(existingItem.getFoundByName());
-                        }
-                        if (updatedItem.getStaffInvolved() == null) {
-                            updatedItem.setStaffInvolved(existingItem.getStaffInvolved());
-                        }
-
-                        // Set the ID and updated timestamp
-                        updatedItem.setId(id);
-                        updatedItem.setUpdatedAt(Instant.now().toString());
-
-                        // Save the updated item
-                        dbRef.child(id).setValueAsync(updatedItem);
-                        future.complete(updatedItem);
-                    } else {
-                        future.complete(null);
-                    }
-                } else {
-                    future.complete(null);
-                }
-            }
+    @Override
+    public CompletableFuture<Items> updateItemAsync(String id, Items updatedItem) {
+        return findItem(id).thenCompose(existingItem -> {
+            requireFound(existingItem, id);
 
-            @Override
-            public void onCancelled(DatabaseError error) {
-                future.completeExceptionally(error.toException());
+            // Preserve fields that are not being updated
+            if (updatedItem.getTurnoverDate() == null) {
+                updatedItem.setTurnoverDate(existingItem.getTurnoverDate());
+            }
+            if (updatedItem.getTurnoverPerson() == null) {
+                updatedItem.setTurnoverPerson(existingItem.getTurnoverPerson());
             }
+            if (updatedItem.getFoundByName() == null) {
+                updatedItem.setFoundByName(existingItem.getFoundByName());
+            }
+            if (updatedItem.getStaffInvolved() == null) {
+                updatedItem.setStaffInvolved(existingItem.getStaffInvolved());
+            }
+            // Thumbnails stay valid while their images are unchanged; otherwise they are regenerated
+            if (updatedItem.getThumbnailUrls() == null
+                    && Objects.equals(updatedItem.getImageUrls(), existingItem.getImageUrls())) {
+                updatedItem.setThumbnailUrls(existingItem.getThumbnailUrls());
+            }
+            if (updatedItem.getClaimantThumbnail() == null
+                    && Objects.equals(updatedItem.getClaimantImage(), existingItem.getClaimantImage())) {
+                updatedItem.setClaimantThumbnail(existingItem.getClaimantThumbnail());
+            }
+
+            // Set the ID and updated timestamp
+            updatedItem.setId(id);
+            updatedItem.setUpdatedAt(Instant.now().toString());
+
+            // Send only the fields that differ from the stored item
+            return withTimeout(storage.update(itemPath(id), changedFields(existingItem, updatedItem))).thenApply(ignored -> {
+                itemCache.put(id, updatedItem);
+                return updatedItem;
+            });
         });
+    }
 
-        try {
-            return future.get();
-        } catch (Exception e) {
-            e.printStackTrace();
-            return null;
-        }
+    // Top-level fields whose value differs between the two items; cleared fields map to null
+    static Map<String, Object> changedFields(Items before, Items after) {
+        Map<String, Object> beforeFields = FIELD_MAPPER.convertValue(before, FIELD_MAP);
+        Map<String, Object> afterFields = FIELD_MAPPER.convertValue(after, FIELD_MAP);
+        Map<String, Object> changes = new LinkedHashMap<>();
+        afterFields.forEach((field, value) -> {
+            if (!Objects.equals(beforeFields.get(field), value)) {
+                changes.put(field, value);
+            }
+        });
+        return changes;
     }
 
     @Override
     public void deleteItem(String id) {
-        dbRef.child(id).addListenerForSingleValueEvent(new ValueEventListener() {
-            @Override
-            public void onDataChange(DataSnapshot snapshot) {
-                if (snapshot.exists()) {
-                    Items item = snapshot.getValue(Items.class);
-                    if (item != null) {
-                        saveToItemsHistory(item);
-                    }
-                    dbRef.child(id).removeValueAsync();
-                }
+        deleteItemAsync(id).whenComplete((ignored, error) -> {
+            if (error != null && !(unwrap(error) instanceof ItemNotFoundException)) {
+                error.printStackTrace();
             }
+        });
+    }
 
-            @Override
-            public void onCancelled(DatabaseError error) {
-                error.toException().printStackTrace();
+    // Archive and remove in one atomic multi-location write
+    @Override
+    public CompletableFuture<Void> deleteItemAsync(String id) {
+        return findItem(id).thenCompose(item -> {
+            requireFound(item, id);
+            return writeArchive(Map.of(id, item));
+        });
+    }
+
+    @Override
+    public CompletableFuture<BulkArchiveResult> archiveItemsAsync(List<String> ids) {
+        Map<String, CompletableFuture<Items>> lookups = new LinkedHashMap<>();
+        for (String id : ids) {
+            lookups.putIfAbsent(id, findItem(id));
+        }
+
+        return CompletableFuture.allOf(lookups.values().toArray(new CompletableFuture[0])).thenCompose(ignored -> {
+            Map<String, Items> found = new LinkedHashMap<>();
+            List<String> notFound = new ArrayList<>();
+            lookups.forEach((id, lookup) -> {
+                Items item = lookup.join();
+                if (item != null) {
+                    found.put(id, item);
+                } else {
+                    notFound.add(id);
+                }
+            });
+
+            // Bounded batches keep each write well under the database's request size limit
+            List<CompletableFuture<Void>> writes = new ArrayList<>();
+            Map<String, Items> batch = new LinkedHashMap<>();
+            for (Map.Entry<String, Items> entry : found.entrySet()) {
+                batch.put(entry.getKey(), entry.getValue());
+                if (batch.size() == ARCHIVE_BATCH_SIZE) {
+                    writes.add(writeArchive(batch));
+                    batch = new LinkedHashMap<>();
+                }
             }
+            if (!batch.isEmpty()) {
+                writes.add(writeArchive(batch));
+            }
+
+            return CompletableFuture.allOf(writes.toArray(new CompletableFuture[0]))
+                    .thenApply(done -> new BulkArchiveResult(new ArrayList<>(found.keySet()), notFound));
+        });
+    }
+
+    // Copies each item into ItemsHistory under a new key and removes it from items in the same write
+    private CompletableFuture<Void> writeArchive(Map<String, Items> itemsById) {
+        Map<String, Object> updates = new LinkedHashMap<>();
+        List<Items> records = new ArrayList<>(itemsById.size());
+        String archivedAt = Instant.now().toString();
+        itemsById.forEach((id, item) -> {
+            String historyId = storage.newKey(HISTORY);
+            Items record = item.toBuilder().id(historyId).archivedAt(archivedAt).build();
+            records.add(record);
+            updates.put(HISTORY + "/" + historyId, record);
+            updates.put(itemPath(id), null);
+        });
+        return withTimeout(storage.update("", updates)).thenRun(() -> {
+            itemsById.keySet().forEach(itemCache::remove);
+            records.forEach(itemAnalytics::historyAdded);
         });
     }
 
     @Override
     public void saveToItemsHistory(Items item) {
-        String historyId = historyDbRef.push().getKey();
+        String historyId = storage.newKey(HISTORY);
         item.setId(historyId);
-        historyDbRef.child(historyId).setValueAsync(item);
+        item.setArchivedAt(Instant.now().toString());
+        storage.set(HISTORY + "/" + historyId, item).whenComplete((ignored, error) -> {
+            if (error == null) {
+                itemAnalytics.historyAdded(item);
+            }
+        });
     }
 
+    // The restart id keeps versions from repeating across restarts, when the counters start over
     @Override
-    public List<Items> getAllItemsFromHistory() {
-        CompletableFuture<List<Items>> future = new CompletableFuture<>();
-        historyDbRef.addListenerForSingleValueEvent(new ValueEventListener() {
-            @Override
-            public void onDataChange(DataSnapshot snapshot) {
-                List<Items> itemsList = new ArrayList<>();
-                if (snapshot.exists()) {
-                    for (DataSnapshot childSnapshot : snapshot.getChildren()) {
-                        Items item = childSnapshot.getValue(Items.class);
-                        itemsList.add(item);
-                    }
+    public String getItemsVersion() {
+        return itemCache.isLoaded() ? "items-" + startupId + "-" + itemCache.getVersion() : null;
+    }
+
+    // Only starts the walk, like the reconcile above, so the shared scheduler thread is never held
+    @Scheduled(initialDelayString = "${findnest.history.compaction-interval-ms:3600000}",
+            fixedDelayString = "${findnest.history.compaction-interval-ms:3600000}")
+    public void compactHistory() {
+        compactHistoryAsync();
+    }
+
+    // Moves history records past the hot retention into the archive one page at a time. Segments
+    // are written before the records are removed, so a failure in between leaves them in both
+    // tiers, where reads prefer the hot copy, rather than losing them.
+    CompletableFuture<Void> compactHistoryAsync() {
+        if (!historyArchive.isEnabled() || !compactingHistory.compareAndSet(false, true)) {
+            return CompletableFuture.completedFuture(null);
+        }
+        return compactHistoryFrom(null, Instant.now(), 0).handle((moved, error) -> {
+            compactingHistory.set(false);
+            if (error != null) {
+                log.error("Error compacting item history", unwrap(error));
+            } else if (moved > 0) {
+                log.info("Moved {} history records to the archive.", moved);
+            }
+            return null;
+        });
+    }
+
+    // Each page is chained on the last, so no thread waits on storage between pages
+    private CompletableFuture<Integer> compactHistoryFrom(String cursor, Instant now, int moved) {
+        return withTimeout(storage.getChildrenPage(HISTORY, cursor, ARCHIVE_BATCH_SIZE, Items.class)).thenCompose(page -> {
+            Map<String, Items> due = new LinkedHashMap<>();
+            Map<String, Object> removals = new LinkedHashMap<>();
+            String lastKey = cursor;
+            for (Map.Entry<String, Items> entry : page.entrySet()) {
+                lastKey = entry.getKey();
+                if (historyArchive.isDue(entry.getValue(), now)) {
+                    entry.getValue().setId(entry.getKey());
+                    due.put(entry.getKey(), entry.getValue());
+                    removals.put(entry.getKey(), null);
                 }
-                future.complete(itemsList);
             }
+            CompletableFuture<Void> archived = due.isEmpty()
+                    ? CompletableFuture.completedFuture(null)
+                    : historyArchive.appendAsync(due).thenCompose(ignored -> withTimeout(storage.update(HISTORY, removals)));
+            String nextCursor = lastKey;
+            int total = moved + due.size();
+            return archived.thenCompose(ignored -> page.size() == ARCHIVE_BATCH_SIZE
+                    ? compactHistoryFrom(nextCursor, now, total)
+                    : CompletableFuture.completedFuture(total));
+        });
+    }
 
-            @Override
-            public void onCancelled(DatabaseError error) {
-                future.completeExceptionally(error.toException());
+    // Started after a delay so it doesn't compete with the cache load at startup, and chained
+    // asynchronously like compaction
+    @Scheduled(initialDelayString = "${findnest.items.stats.history-rebuild-initial-delay-ms:60000}",
+            fixedDelayString = "${findnest.items.stats.history-rebuild-interval-ms:86400000}")
+    public void rebuildHistoryStats() {
+        rebuildHistoryStatsAsync();
+    }
+
+    // Recounts the history rollups from both tiers, correcting any writes missed since the last walk.
+    // The old rollups keep serving until the walk completes, and a failed walk leaves them in place.
+    CompletableFuture<Void> rebuildHistoryStatsAsync() {
+        if (!rebuildingHistoryStats.compareAndSet(false, true)) {
+            return CompletableFuture.completedFuture(null);
+        }
+        return rebuildHistoryStatsFrom(null, itemAnalytics.beginHistoryRebuild()).handle((rebuilt, error) -> {
+            if (error != null) {
+                itemAnalytics.abandonHistoryRebuild();
+                log.error("Error rebuilding history stats", unwrap(error));
+            } else {
+                itemAnalytics.historyReset(rebuilt);
             }
+            rebuildingHistoryStats.set(false);
+            return null;
         });
+    }
 
-        try {
-            return future.get();
-        } catch (Exception e) {
-            e.printStackTrace();
-            return new ArrayList<>();
+    private CompletableFuture<ItemAnalytics.Rollup> rebuildHistoryStatsFrom(String cursor, ItemAnalytics.Rollup rebuilt) {
+        return historyPage(cursor, MAX_PAGE_SIZE, false).thenCompose(page -> {
+            itemAnalytics.historyRebuilt(rebuilt, page.getItems());
+            return page.getNextCursor() == null
+                    ? CompletableFuture.completedFuture(rebuilt)
+                    : rebuildHistoryStatsFrom(page.getNextCursor(), rebuilt);
+        });
+    }
+
+    @Override
+    public CompletableFuture<ItemStats> getItemStatsAsync(int weeks, int top) {
+        // Current items are counted from the cache, so load it before answering
+        return cacheReady().thenApply(ignored -> itemAnalytics.getStats(weeks, top));
+    }
+
+    @Override
+    public List<Items> getAllItemsFromHistory() {
+        return await(getAllItemsFromHistoryAsync(), new ArrayList<>());
+    }
+
+    // A full archive scan can outlast the storage timeout, so only a failure falls back to the hot tier
+    @Override
+    public CompletableFuture<List<Items>> getAllItemsFromHistoryAsync() {
+        return withTimeout(storage.getChildren(HISTORY, Items.class))
+                .thenCombine(coldTier(historyArchive::readAll, Collections.<String, Items>emptyNavigableMap(), true),
+                        (hot, cold) -> new ArrayList<>(mergeHistory(hot, cold).values()));
+    }
+
+    @Override
+    public CompletableFuture<ItemPage> getItemsFromHistoryPageAsync(String cursor, int limit) {
+        return historyPage(cursor, limit, true);
+    }
+
+    // Each tier is asked for one page past the cursor; the first page of their union is the answer.
+    // Walks that must see every record, the export and the stats rebuild, fail instead of degrading.
+    private CompletableFuture<ItemPage> historyPage(String cursor, int limit, boolean degrade) {
+        int pageSize = clampPageSize(limit);
+        return withTimeout(storage.getChildrenPage(HISTORY, cursor, pageSize + 1, Items.class))
+                .thenCombine(coldTier(() -> withTimeout(historyArchive.page(cursor, pageSize + 1)),
+                                Collections.<String, Items>emptyNavigableMap(), degrade),
+                        (hot, cold) -> toPage(mergeHistory(hot, cold), pageSize));
+    }
+
+    // The archive is not read at all while compaction is off. Otherwise, when degrade is set, a
+    // failed read is logged and answered with the fallback, so history stays readable from the
+    // hot tier while the bucket is down.
+    private <T> CompletableFuture<T> coldTier(Supplier<CompletableFuture<T>> read, T fallback, boolean degrade) {
+        if (!historyArchive.isEnabled()) {
+            return CompletableFuture.completedFuture(fallback);
         }
+        CompletableFuture<T> cold = read.get();
+        return !degrade ? cold : cold.exceptionally(error -> {
+            log.warn("History archive unavailable, serving the hot tier only", unwrap(error));
+            return fallback;
+        });
+    }
+
+    // Both tiers in key order; a record left in both by an interrupted compaction is taken from the hot tier
+    private static Map<String, Items> mergeHistory(Map<String, Items> hot, Map<String, Items> cold) {
+        Map<String, Items> merged = new TreeMap<>(cold);
+        merged.putAll(hot);
+        return merged;
     }
 
+    // Walks the collection one page at a time so only a single chunk is held in memory.
+    // A failed page read aborts the export rather than ending it early as if it were complete.
     @Override
-    public Items getItemFromHistoryById(String id) {
-        CompletableFuture<Items> future = new CompletableFuture<>();
-        historyDbRef.child(id).addListenerForSingleValueEvent(new ValueEventListener() {
-            @Override
-            public void onDataChange(DataSnapshot snapshot) {
-                if (snapshot.exists()) {
-                    future.complete(snapshot.getValue(Items.class));
-                } else {
-                    future.complete(null);
-                }
+    public void exportItems(boolean fromHistory, ItemFilter filter, Consumer<List<Items>> pageConsumer) throws IOException {
+        String cursor = null;
+        do {
+            CompletableFuture<ItemPage> read = fromHistory
+                    ? historyPage(cursor, EXPORT_CHUNK_SIZE, false)
+                    : getItemsPageAsync(cursor, EXPORT_CHUNK_SIZE);
+            ItemPage page;
+            try {
+                page = threadingMetrics.await(read, ITEMS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new InterruptedIOException("Export interrupted");
+            } catch (ExecutionException e) {
+                throw new IOException("Export failed after cursor " + cursor + ": " + unwrap(e).getMessage(), unwrap(e));
             }
-
-            @Override
-            public void onCancelled(DatabaseError error) {
-                future.completeExceptionally(error.toException());
+            List<Items> matching = filterItems(page.getItems(), filter);
+            if (!matching.isEmpty()) {
+                pageConsumer.accept(matching);
             }
-        });
+            cursor = page.getNextCursor();
+        } while (cursor != null);
+    }
 
-        try {
-            return future.get();
-        } catch (Exception e) {
-            e.printStackTrace();
-            return null;
-        }
+    @Override
+    public Items getItemFromHistoryById(String id) {
+        return await(getItemFromHistoryByIdAsync(id), null);
+    }
+
+    @Override
+    public CompletableFuture<Items> getItemFromHistoryByIdAsync(String id) {
+        return readItem(HISTORY + "/" + id)
+                .thenCompose(item -> item != null ? CompletableFuture.completedFuture(item)
+                        : coldTier(() -> withTimeout(historyArchive.find(id)), null, true))
+                .thenApply(item -> requireFound(item, id));
     }
 
     @Override
     public Items countAllItems() {
-        CompletableFuture<Items> future = new CompletableFuture<>();
-        dbRef.addListenerForSingleValueEvent(new ValueEventListener() {
-            @Override
-            public void onDataChange(DataSnapshot snapshot) {
-                Items itemCounts = new Items();
-                itemCounts.setTotalCount(snapshot.getChildrenCount());
-                long availableCount = 0;
-                long claimedCount = 0;
-
-                for (DataSnapshot childSnapshot : snapshot.getChildren()) {
-                    String status = childSnapshot.child("status").getValue(String.class);
-                    if ("Available".equalsIgnoreCase(status)) {
-                        availableCount++;
-                    } else if ("Claimed".equalsIgnoreCase(status)) {
-                        claimedCount++;
-                    }
-                }
+        return await(countAllItemsAsync(), new Items());
+    }
 
-                itemCounts.setAvailableCount(availableCount);
-                itemCounts.setClaimedCount(claimedCount);
-                future.complete(itemCounts);
-            }
+    @Override
+    public CompletableFuture<Items> countAllItemsAsync() {
+        if (itemCache.isLoaded()) {
+            return CompletableFuture.completedFuture(itemCounters.getStatusCounts());
+        }
 
-            @Override
-            public void onCancelled(DatabaseError error) {
-                future.completeExceptionally(error.toException());
+        return readItems(ITEMS).thenApply(itemsList -> {
+            Items itemCounts = new Items();
+            itemCounts.setTotalCount(itemsList.size());
+            long availableCount = 0;
+            long claimedCount = 0;
+
+            for (Items item : itemsList) {
+                if ("Available".equalsIgnoreCase(item.getStatus())) {
+                    availableCount++;
+                } else if ("Claimed".equalsIgnoreCase(item.getStatus())) {
+                    claimedCount++;
+                }
             }
+
+            itemCounts.setAvailableCount(availableCount);
+            itemCounts.setClaimedCount(claimedCount);
+            return itemCounts;
         });
+    }
 
-        try {
-            return future.get();
-        } catch (Exception e) {
-            e.printStackTrace();
-            return new Items();
-        }
+    @Override
+    public CompletableFuture<ItemCounts> countItemsBreakdownAsync() {
+        // Counters are built from the cache, so load it before answering
+        return cacheReady().thenApply(ignored -> itemCounters.getCounts());
     }
 
     @Override
     public Items patchItem(String id, Map<String, Object> updates) {
-        CompletableFuture<Items> future = new CompletableFuture<>();
-        dbRef.child(id).addListenerForSingleValueEvent(new ValueEventListener() {
-            @Override
-            public void onDataChange(DataSnapshot snapshot) {
-                if (snapshot.exists()) {
-                    Items item = snapshot.getValue(Items.class);
-                    if (item != null) {
-                        if (!"Claimed".equalsIgnoreCase(item.getStatus())) {
-                            item.setStatus("Claimed");
-                            item.setClaimedDate(Instant.now().toString());
-                        }
-                        updates.forEach((key, value) -> {
-                            switch (key) {
-                                case "claimantName":
-                                    item.setClaimantName((String) value);
-                                    break;
-                                case "claimantImage":
-                                    item.setClaimantImage((String) value);
-                                    break;
-                                case "userRef":
-                                    item.setUserRef((String) value);
-                                    break;
-                                case "foundByName": // Added case for `foundByName`
-                                    item.setFoundByName((String) value);
-                                    break;
-                                case "staffInvolved": // Added case for `staffInvolved`
-                                    item.setStaffInvolved((String) value);
-                                    break;
-                            }
-                        });
+        return await(patchItemAsync(id, updates), null);
+    }
 
-                        item.setUpdatedAt(Instant.now().toString());
-                        dbRef.child(id).setValueAsync(item);
-                        future.complete(item);
-                    } else {
-                        future.complete(null);
+    // Claims an unclaimed item, as before; on an item that is already claimed it only edits the
+    // claim fields. ItemAlreadyClaimedException means another claim won between the two reads.
+    @Override
+    public CompletableFuture<Items> patchItemAsync(String id, Map<String, Object> updates) {
+        return findItem(id).thenCompose(existingItem -> {
+            requireFound(existingItem, id);
+            if (isUnclaimed(existingItem.getStatus())) {
+                return claim(id, updates).thenApply(result -> {
+                    if (!result.isClaimed()) {
+                        throw new ItemAlreadyClaimedException(id);
                     }
-                } else {
-                    future.complete(null);
-                }
+                    return result.getItem();
+                });
             }
 
-            @Override
-            public void onCancelled(DatabaseError error) {
-                future.completeExceptionally(error.toException());
+            Items item = existingItem.toBuilder().id(id).build();
+            Map<String, Object> changes = applyClaim(item, updates);
+            if (changes.isEmpty()) {
+                return CompletableFuture.completedFuture(item);
             }
+            String timestamp = Instant.now().toString();
+            item.setUpdatedAt(timestamp);
+            changes.put("updatedAt", timestamp);
+            return withTimeout(storage.update(itemPath(id), changes)).thenApply(ignored -> {
+                itemCache.put(id, item);
+                return item;
+            });
         });
-
-        try {
-            return future.get();
-        } catch (Exception e) {
-            e.printStackTrace();
-            return null;
-        }
     }
 
     @Override
-    public Items updateTurnoverDetails(String id, String turnoverDate, String turnoverPerson, String department) {
-        CompletableFuture<Items> future = new CompletableFuture<>();
-        dbRef.child(id).addListenerForSingleValueEvent(new ValueEventListener() {
-            @Override
-            public void onDataChange(DataSnapshot snapshot) {
-                if (snapshot.exists()) {
-                    Items item = snapshot.getValue(Items.class);
-                    if (item != null) {
-                        // Update the turnoverDate, turnoverPerson, and department
-                        item.setTurnoverDate(turnoverDate);
-                        item.setTurnoverPerson(turnoverPerson);
-                        item.setDepartment(department);
-
-                        // Set the updated timestamp
-                        item.setUpdatedAt(Instant.now().toString());
-
-                        // Save the updated item back to the database
-                        dbRef.child(id).setValueAsync(item);
-                        future.complete(item);
-                    } else {
-                        future.complete(null);
-                    }
-                } else {
-                    future.complete(null);
-                }
+    public CompletableFuture<ClaimResult> claimItemAsync(String id, Map<String, Object> updates) {
+        return claim(id, updates);
+    }
+
+    // A transaction on the item's status decides the race, so only the status goes over the wire
+    // for it, and it aborts on a claimed or missing item without writing anything. The winner then
+    // sends just the fields its claim changed.
+    private CompletableFuture<ClaimResult> claim(String id, Map<String, Object> updates) {
+        return withTimeout(storage.transaction(itemPath(id) + "/status", String.class,
+                status -> isUnclaimed(status) ? "Claimed" : null)).thenCompose(won -> {
+            if (won == null) {
+                // Lost or missing: report the item as it stands now
+                return readItem(itemPath(id)).thenApply(current -> new ClaimResult(requireFound(current, id), false));
             }
+            return findItem(id)
+                    .thenCompose(cached -> cached != null ? CompletableFuture.completedFuture(cached) : readItem(itemPath(id)))
+                    .thenCompose(current -> {
+                        String timestamp = Instant.now().toString();
+                        Items item = requireFound(current, id).toBuilder()
+                                .id(id).status("Claimed").claimedDate(timestamp).updatedAt(timestamp).build();
+                        Map<String, Object> changes = new LinkedHashMap<>();
+                        changes.put("claimedDate", timestamp);
+                        changes.put("updatedAt", timestamp);
+                        changes.putAll(applyClaim(item, updates));
+                        return withTimeout(storage.update(itemPath(id), changes)).thenApply(ignored -> {
+                            itemCache.put(id, item);
+                            return new ClaimResult(item, true);
+                        });
+                    });
+        });
+    }
 
-            @Override
-            public void onCancelled(DatabaseError error) {
-                future.completeExceptionally(error.toException());
+    private static boolean isUnclaimed(String status) {
+        return !"Claimed".equalsIgnoreCase(status);
+    }
+
+    // Copies over the claim fields present in the request, returning the ones whose value changed
+    static Map<String, Object> applyClaim(Items item, Map<String, Object> updates) {
+        Map<String, Object> changes = new LinkedHashMap<>();
+        updates.forEach((key, value) -> {
+            switch (key) {
+                case "claimantName":
+                    if (!Objects.equals(item.getClaimantName(), value)) {
+                        item.setClaimantName((String) value);
+                        changes.put(key, value);
+                    }
+                    break;
+                case "claimantImage":
+                    if (!Objects.equals(item.getClaimantImage(), value)) {
+                        item.setClaimantImage((String) value);
+                        changes.put(key, value);
+                        // Regenerated in the background for the new image
+                        item.setClaimantThumbnail(null);
+                        changes.put("claimantThumbnail", null);
+                    }
+                    break;
+                case "userRef":
+                    if (!Objects.equals(item.getUserRef(), value)) {
+                        item.setUserRef((String) value);
+                        changes.put(key, value);
+                    }
+                    break;
+                case "foundByName": // Added case for `foundByName`
+                    if (!Objects.equals(item.getFoundByName(), value)) {
+                        item.setFoundByName((String) value);
+                        changes.put(key, value);
+                    }
+                    break;
+                case "staffInvolved": // Added case for `staffInvolved`
+                    if (!Objects.equals(item.getStaffInvolved(), value)) {
+                        item.setStaffInvolved((String) value);
+                        changes.put(key, value);
+                    }
+                    break;
             }
         });
+        return changes;
+    }
+
+    @Override
+    public Items updateTurnoverDetails(String id, String turnoverDate, String turnoverPerson, String department) {
+        return await(updateTurnoverDetailsAsync(id, turnoverDate, turnoverPerson, department), null);
+    }
 
+    @Override
+    public CompletableFuture<Items> updateTurnoverDetailsAsync(String id, String turnoverDate, String turnoverPerson, String department) {
+        // Existence is checked against the cache once it is loaded, so the common case is a single write
+        return findItem(id).thenCompose(existingItem -> {
+            requireFound(existingItem, id);
+
+            Map<String, Object> changes = new LinkedHashMap<>();
+            changes.put("turnoverDate", turnoverDate);
+            changes.put("turnoverPerson", turnoverPerson);
+            changes.put("department", department);
+            String timestamp = Instant.now().toString();
+            changes.put("updatedAt", timestamp);
+
+            Items item = existingItem.toBuilder()
+                    .turnoverDate(turnoverDate)
+                    .turnoverPerson(turnoverPerson)
+                    .department(department)
+                    .updatedAt(timestamp)
+                    .build();
+
+            return withTimeout(storage.update(itemPath(id), changes)).thenApply(ignored -> {
+                itemCache.put(id, item);
+                return item;
+            });
+        });
+    }
+
+    private static int clampPageSize(int limit) {
+        return Math.max(1, Math.min(limit, MAX_PAGE_SIZE));
+    }
+
+    // Reads one page in key order, fetching one extra child to tell whether another page follows
+    private CompletableFuture<ItemPage> readPage(String node, String cursor, int pageSize) {
+        return withTimeout(storage.getChildrenPage(node, cursor, pageSize + 1, Items.class))
+                .thenApply(itemsByKey -> toPage(itemsByKey, pageSize));
+    }
+
+    // Trims a page fetched with one extra item and derives the next cursor from it
+    private static ItemPage toPage(Map<String, Items> fetched, int pageSize) {
+        List<Items> page = new ArrayList<>(pageSize);
+        String lastKey = null;
+        for (Map.Entry<String, Items> entry : fetched.entrySet()) {
+            if (page.size() == pageSize) {
+                // There is at least one more item, so hand out a cursor
+                return new ItemPage(page, lastKey);
+            }
+            page.add(entry.getValue());
+            lastKey = entry.getKey();
+        }
+        return new ItemPage(page, null);
+    }
+
+    // Completes once the cache holds every item, reloading it if the listener has not loaded it yet
+    private CompletableFuture<Void> cacheReady() {
+        return itemCache.isLoaded() ? CompletableFuture.completedFuture(null) : reloadItemCache();
+    }
+
+    // Current item from the cache when it is loaded, otherwise from storage; null when missing
+    private CompletableFuture<Items> findItem(String id) {
+        if (itemCache.isLoaded()) {
+            return CompletableFuture.completedFuture(itemCache.get(id));
+        }
+        return readItem(itemPath(id));
+    }
+
+    // Single read of one item; completes with null when it does not exist
+    private CompletableFuture<Items> readItem(String path) {
+        return withTimeout(storage.get(path, Items.class));
+    }
+
+    // Single read of every child of a node
+    private CompletableFuture<List<Items>> readItems(String node) {
+        return withTimeout(storage.getChildren(node, Items.class)).thenApply(items -> new ArrayList<>(items.values()));
+    }
+
+    private static String itemPath(String id) {
+        return ITEMS + "/" + id;
+    }
+
+    // Applies the round-trip timeout and moves continuations off the storage callback thread
+    private <T> CompletableFuture<T> withTimeout(CompletableFuture<T> future) {
+        threadingMetrics.callStarted();
+        return future.orTimeout(timeoutMs, TimeUnit.MILLISECONDS)
+                .whenCompleteAsync((result, error) -> threadingMetrics.callFinished(), callbackExecutor);
+    }
+
+    private static Items requireFound(Items item, String id) {
+        if (item == null) {
+            throw new ItemNotFoundException(id);
+        }
+        return item;
+    }
+
+    // Blocking bridge for the synchronous API: errors are logged and mapped to the fallback value
+    private <T> T await(CompletableFuture<T> future, T fallback) {
         try {
-            return future.get();
-        } catch (Exception e) {
-            e.printStackTrace();
-            return null;
+            return threadingMetrics.await(future, ITEMS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return fallback;
+        } catch (ExecutionException e) {
+            if (!(unwrap(e) instanceof ItemNotFoundException) && !(unwrap(e) instanceof ItemAlreadyClaimedException)) {
+                e.printStackTrace();
+            }
+            return fallback;
+        }
+    }
+
+    private static Throwable unwrap(Throwable error) {
+        while ((error instanceof CompletionException || error instanceof ExecutionException)
+                && error.getCause() != null) {
+            error = error.getCause();
         }
+        return error;
     }
-}
\ No newline at end of file
+}
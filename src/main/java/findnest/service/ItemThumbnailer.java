@@ -0,0 +1,100 @@
+package findnest.service;
+
+import findnest.model.Items;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.stereotype.Component;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.Objects;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Predicate;
+import java.util.function.UnaryOperator;
+
+/**
+ * Keeps {@code thumbnailUrls} and {@code claimantThumbnail} in step with the item images.
+ *
+ * Runs off the item change feed, so items saved through any endpoint, or uploaded by the
+ * frontend straight to Firebase, are covered. Thumbnails are written back in a transaction on
+ * the item; the listener echo of that write then finds nothing left to do. A failed attempt
+ * leaves the field unset, so it is retried on the item's next change and at the next
+ * scheduled cache reconcile, which replays every item through {@link #onItemsReset}.
+ */
+@Component
+public class ItemThumbnailer implements ItemChangeListener {
+
+    private static final Logger log = LoggerFactory.getLogger(ItemThumbnailer.class);
+
+    private final ThumbnailService thumbnailService;
+    private final StorageBackend storage;
+    private final Set<String> pending = ConcurrentHashMap.newKeySet(); // id/field pairs being generated
+
+    public ItemThumbnailer(ThumbnailService thumbnailService, StorageBackend storage) {
+        this.thumbnailService = thumbnailService;
+        this.storage = storage;
+    }
+
+    @Override
+    public void onItemChanged(Items previous, Items current) {
+        if (current != null) {
+            scheduleMissing(current);
+        }
+    }
+
+    // Picks up items saved while the service was down or whose earlier attempt failed
+    @Override
+    public void onItemsReset(Collection<Items> items) {
+        items.forEach(this::scheduleMissing);
+    }
+
+    private void scheduleMissing(Items item) {
+        String id = item.getId();
+        if (id == null) {
+            return;
+        }
+
+        List<String> images = item.getImageUrls();
+        if (images != null && !images.isEmpty()
+                && (item.getThumbnailUrls() == null || item.getThumbnailUrls().size() != images.size())) {
+            String task = id + "/thumbnailUrls";
+            if (pending.add(task)) {
+                List<String> originals = List.copyOf(images);
+                thumbnailService.createThumbnails(originals).whenComplete((thumbnails, error) -> {
+                    if (error == null) {
+                        write(id, current -> Objects.equals(current.getImageUrls(), originals),
+                                current -> current.toBuilder().thumbnailUrls(thumbnails).build());
+                    }
+                    pending.remove(task);
+                });
+            }
+        }
+
+        String claimantImage = item.getClaimantImage();
+        if (claimantImage != null && !claimantImage.isEmpty() && item.getClaimantThumbnail() == null) {
+            String task = id + "/claimantThumbnail";
+            if (pending.add(task)) {
+                thumbnailService.createThumbnail(claimantImage).whenComplete((thumbnail, error) -> {
+                    if (error == null) {
+                        write(id, current -> claimantImage.equals(current.getClaimantImage()),
+                                current -> current.toBuilder().claimantThumbnail(thumbnail).build());
+                    }
+                    pending.remove(task);
+                });
+            }
+        }
+    }
+
+    // Skipped if the item was archived or its image replaced while the thumbnail was made; the
+    // transaction never recreates a missing item
+    private void write(String id, Predicate<Items> unchanged, UnaryOperator<Items> update) {
+        storage.transaction("items/" + id, Items.class, current -> unchanged.test(current) ? update.apply(current) : null)
+                .whenComplete((ignored, error) -> {
+            if (error != null) {
+                log.error("Error saving thumbnails for item {}", id, error);
+            }
+        });
+    }
+}
@@ -0,0 +1,83 @@
+package findnest.service;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+
+/**
+ * Images in a directory on disk, standing in for the bucket in development and tests.
+ *
+ * Written images are served by {@code WebConfig} under /images/, and their URLs are built
+ * from findnest.images.local.base-url. Only such URLs are read, and only inside the directory.
+ * Server-only objects go in findnest.images.local.objects-dir, which is not served.
+ */
+@Component
+@ConditionalOnProperty(name = "findnest.images.store", havingValue = "local")
+public class LocalImageStore implements ImageStore {
+
+    private final Path directory;
+    private final Path objectsDirectory;
+    private final String baseUrl;
+
+    public LocalImageStore(@Value("${findnest.images.local.dir:data/images}") String directory,
+                           @Value("${findnest.images.local.base-url:http://localhost:8080/images}") String baseUrl,
+                           @Value("${findnest.images.local.objects-dir:data/objects}") String objectsDirectory) throws IOException {
+        this.directory = Paths.get(directory).toAbsolutePath().normalize();
+        this.objectsDirectory = Paths.get(objectsDirectory).toAbsolutePath().normalize();
+        this.baseUrl = baseUrl.endsWith("/") ? baseUrl.substring(0, baseUrl.length() - 1) : baseUrl;
+        Files.createDirectories(this.directory);
+        Files.createDirectories(this.objectsDirectory);
+    }
+
+    @Override
+    public byte[] read(String url) throws IOException {
+        if (!url.startsWith(baseUrl + "/")) {
+            throw new IOException("Not a local image: " + url);
+        }
+        return Files.readAllBytes(resolve(directory, url.substring(baseUrl.length() + 1)));
+    }
+
+    @Override
+    public String write(String name, byte[] data, String contentType) throws IOException {
+        writeFile(resolve(directory, name), data);
+        return baseUrl + "/" + name;
+    }
+
+    @Override
+    public byte[] readObject(String name) throws IOException {
+        Path path = resolve(objectsDirectory, name);
+        return Files.exists(path) ? Files.readAllBytes(path) : null;
+    }
+
+    @Override
+    public void writeObject(String name, byte[] data, String contentType) throws IOException {
+        writeFile(resolve(objectsDirectory, name), data);
+    }
+
+    public Path getDirectory() {
+        return directory;
+    }
+
+    // Write then move, so a reader never sees a partial file
+    private static void writeFile(Path target, byte[] data) throws IOException {
+        Files.createDirectories(target.getParent());
+        Path temp = Files.createTempFile(target.getParent(), "upload", ".tmp");
+        Files.write(temp, data);
+        Files.move(temp, target, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    }
+
+    // Object names may contain slashes but must stay inside the directory
+    private static Path resolve(Path root, String name) throws IOException {
+        Path path = root.resolve(name).normalize();
+        if (!path.startsWith(root)) {
+            throw new IOException("Object name outside its directory: " + name);
+        }
+        return path;
+    }
+}
@@ -0,0 +1,410 @@
+package findnest.service;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.DeserializationFeature;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.security.SecureRandom;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.concurrent.CompletableFuture;
+import java.util.function.UnaryOperator;
+
+/**
+ * Embedded storage backend persisted to local disk, for offline runs, read-heavy replicas and
+ * load tests without network noise.
+ *
+ * The whole tree is held in memory in key-ordered maps, which doubles as the index for reads.
+ * Every write is appended to a change log as a single JSON line before it is applied, so a
+ * multi-path update is all-or-nothing on replay. Once the log reaches the compaction threshold
+ * the tree is written out as a snapshot and the log starts over. On startup the snapshot is
+ * loaded and the log replayed on top of it.
+ */
+@Component
+@ConditionalOnProperty(name = "findnest.storage.backend", havingValue = "local")
+public class LocalStorageBackend implements StorageBackend, Closeable {
+
+    private static final Logger log = LoggerFactory.getLogger(LocalStorageBackend.class);
+
+    private static final String SNAPSHOT_FILE = "snapshot.json";
+    private static final String LOG_FILE = "changes.log";
+    // Same alphabet as Firebase push ids, in ASCII order so keys sort by creation time
+    private static final String PUSH_CHARS = "-0123456789ABCDEFGHIJKLMNOPQRSTUVWXYZ_abcdefghijklmnopqrstuvwxyz";
+
+    private final ObjectMapper objectMapper = new ObjectMapper()
+            .configure(DeserializationFeature.FAIL_ON_UNKNOWN_PROPERTIES, false);
+    private final Path snapshotFile;
+    private final Path logFile;
+    private final int compactionThreshold;
+    private final Map<String, Object> root = new TreeMap<>();
+    private final Map<String, List<Watch<?>>> watches = new HashMap<>();
+    private final Random random = new SecureRandom();
+    private final int[] lastRandomChars = new int[12];
+    private long lastPushTime;
+    private BufferedWriter logWriter;
+    private int logEntries;
+
+    public LocalStorageBackend(@Value("${findnest.storage.local.dir:data}") String directory,
+                               @Value("${findnest.storage.local.compaction-threshold:10000}") int compactionThreshold)
+            throws IOException {
+        Path dir = Paths.get(directory);
+        Files.createDirectories(dir);
+        this.snapshotFile = dir.resolve(SNAPSHOT_FILE);
+        this.logFile = dir.resolve(LOG_FILE);
+        this.compactionThreshold = compactionThreshold;
+        boolean tornEntry = load();
+        this.logWriter = openLog(true);
+        if (tornEntry) {
+            // Later entries would be appended to the partial line and lost on the next replay
+            compact();
+        }
+        log.info("Local storage loaded from {} with {} log entries.", dir.toAbsolutePath(), logEntries);
+    }
+
+    @Override
+    public synchronized String newKey(String node) {
+        long now = System.currentTimeMillis();
+        boolean duplicateTime = now == lastPushTime;
+        lastPushTime = now;
+
+        char[] timestampChars = new char[8];
+        for (int i = 7; i >= 0; i--) {
+            timestampChars[i] = PUSH_CHARS.charAt((int) (now % 64));
+            now = now / 64;
+        }
+        StringBuilder key = new StringBuilder(20).append(timestampChars);
+
+        if (!duplicateTime) {
+            for (int i = 0; i < 12; i++) {
+                lastRandomChars[i] = random.nextInt(64);
+            }
+        } else {
+            // Same millisecond: increment the random part so keys stay unique and ordered
+            int i = 11;
+            while (i >= 0 && lastRandomChars[i] == 63) {
+                lastRandomChars[i] = 0;
+                i--;
+            }
+            if (i >= 0) {
+                lastRandomChars[i]++;
+            }
+        }
+        for (int i = 0; i < 12; i++) {
+            key.append(PUSH_CHARS.charAt(lastRandomChars[i]));
+        }
+        return key.toString();
+    }
+
+    @Override
+    public synchronized <T> CompletableFuture<T> get(String path, Class<T> type) {
+        Object value = resolve(normalizePath(path));
+        return CompletableFuture.completedFuture(value == null ? null : objectMapper.convertValue(value, type));
+    }
+
+    @Override
+    public synchronized <T> CompletableFuture<Map<String, T>> getChildren(String node, Class<T> type) {
+        return CompletableFuture.completedFuture(readChildren(node, null, Integer.MAX_VALUE, type));
+    }
+
+    @Override
+    public synchronized <T> CompletableFuture<Map<String, T>> getChildrenPage(String node, String afterKey, int limit, Class<T> type) {
+        return CompletableFuture.completedFuture(readChildren(node, afterKey, limit, type));
+    }
+
+    @Override
+    public CompletableFuture<Void> set(String path, Object value) {
+        Map<String, Object> updates = new LinkedHashMap<>();
+        updates.put(path, value);
+        return write(updates);
+    }
+
+    @Override
+    public CompletableFuture<Void> remove(String path) {
+        return set(path, null);
+    }
+
+    @Override
+    public CompletableFuture<Void> update(String basePath, Map<String, Object> values) {
+        String base = basePath.isEmpty() ? "" : normalizePath(basePath) + "/";
+        Map<String, Object> updates = new LinkedHashMap<>();
+        values.forEach((path, value) -> updates.put(base + path, value));
+        return write(updates);
+    }
+
+    @Override
+    public synchronized <T> CompletableFuture<T> transaction(String path, Class<T> type, UnaryOperator<T> mutator) {
+        Object current = resolve(normalizePath(path));
+        T updated = current == null ? null : mutator.apply(objectMapper.convertValue(current, type));
+        if (updated == null) {
+            return CompletableFuture.completedFuture(null);
+        }
+        return set(path, updated).thenApply(ignored -> updated);
+    }
+
+    // Watchers are called under the store lock, so they must not block on other writes
+    @Override
+    public synchronized <T> void watch(String node, Class<T> type, ChildWatcher<T> watcher) {
+        watches.computeIfAbsent(node, n -> new ArrayList<>()).add(new Watch<>(type, watcher));
+        readChildren(node, null, Integer.MAX_VALUE, type).forEach(watcher::onChildChanged);
+        watcher.onLoaded();
+    }
+
+    // Writes the in-memory tree out as a snapshot and starts a new, empty change log
+    public synchronized void compact() throws IOException {
+        Path tempFile = snapshotFile.resolveSibling(SNAPSHOT_FILE + ".tmp");
+        try (OutputStream out = Files.newOutputStream(tempFile)) {
+            objectMapper.writeValue(out, root);
+        }
+        try (FileChannel channel = FileChannel.open(tempFile, StandardOpenOption.WRITE)) {
+            channel.force(true);
+        }
+        Files.move(tempFile, snapshotFile, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+
+        logWriter.close();
+        logWriter = openLog(false);
+        logEntries = 0;
+        log.info("Local storage compacted into {}.", snapshotFile);
+    }
+
+    @Override
+    public synchronized void close() throws IOException {
+        logWriter.close();
+    }
+
+    private synchronized CompletableFuture<Void> write(Map<String, Object> updates) {
+        Map<String, Object> plainUpdates = new LinkedHashMap<>();
+        updates.forEach((path, value) -> plainUpdates.put(normalizePath(path), toPlain(value)));
+
+        try {
+            appendToLog(plainUpdates);
+        } catch (IOException e) {
+            return CompletableFuture.failedFuture(new UncheckedIOException("Error writing change log", e));
+        }
+
+        Map<String, Set<String>> touched = touchedChildren(plainUpdates.keySet());
+        plainUpdates.forEach(this::apply);
+        for (String path : plainUpdates.keySet()) {
+            if (!path.contains("/")) {
+                // Whole-node writes also touch the children they created
+                touched.get(path).addAll(touchedChildren(Set.of(path)).get(path));
+            }
+        }
+        notifyWatchers(touched);
+
+        if (++logEntries >= compactionThreshold) {
+            try {
+                compact();
+            } catch (IOException e) {
+                log.error("Error compacting local storage", e);
+            }
+        }
+        return CompletableFuture.completedFuture(null);
+    }
+
+    // Returns whether the log ended in an incomplete entry
+    private boolean load() throws IOException {
+        if (Files.exists(snapshotFile)) {
+            Object snapshot = normalize(objectMapper.readValue(snapshotFile.toFile(), Object.class));
+            if (snapshot instanceof Map<?, ?> map) {
+                map.forEach((key, value) -> root.put((String) key, value));
+            }
+        }
+        if (!Files.exists(logFile)) {
+            return false;
+        }
+        try (BufferedReader reader = Files.newBufferedReader(logFile, StandardCharsets.UTF_8)) {
+            String line;
+            while ((line = reader.readLine()) != null) {
+                if (line.isBlank()) {
+                    continue;
+                }
+                Map<String, Map<String, Object>> entry;
+                try {
+                    entry = objectMapper.readValue(line, new TypeReference<Map<String, Map<String, Object>>>() { });
+                } catch (JsonProcessingException e) {
+                    // A torn last line from a crash mid-write; the write was never acknowledged
+                    log.warn("Ignoring incomplete change log entry: {}", e.getOriginalMessage());
+                    return true;
+                }
+                entry.get("updates").forEach((path, value) -> apply(path, normalize(value)));
+                logEntries++;
+            }
+        }
+        return false;
+    }
+
+    private BufferedWriter openLog(boolean append) throws IOException {
+        return Files.newBufferedWriter(logFile, StandardCharsets.UTF_8, StandardOpenOption.CREATE,
+                StandardOpenOption.WRITE, append ? StandardOpenOption.APPEND : StandardOpenOption.TRUNCATE_EXISTING);
+    }
+
+    private void appendToLog(Map<String, Object> plainUpdates) throws IOException {
+        Map<String, Object> entry = new LinkedHashMap<>();
+        entry.put("updates", plainUpdates);
+        logWriter.write(objectMapper.writeValueAsString(entry));
+        logWriter.newLine();
+        logWriter.flush();
+    }
+
+    private <T> Map<String, T> readChildren(String node, String afterKey, int limit, Class<T> type) {
+        Map<String, T> children = new LinkedHashMap<>();
+        if (resolve(normalizePath(node)) instanceof TreeMap<?, ?> nodeMap) {
+            @SuppressWarnings("unchecked")
+            TreeMap<String, Object> entries = (TreeMap<String, Object>) nodeMap;
+            Map<String, Object> tail = afterKey == null ? entries : entries.tailMap(afterKey, false);
+            for (Map.Entry<String, Object> entry : tail.entrySet()) {
+                if (children.size() == limit) {
+                    break;
+                }
+                children.put(entry.getKey(), objectMapper.convertValue(entry.getValue(), type));
+            }
+        }
+        return children;
+    }
+
+    private Object resolve(String path) {
+        Object current = root;
+        for (String segment : path.split("/")) {
+            if (!(current instanceof Map<?, ?> map)) {
+                return null;
+            }
+            current = map.get(segment);
+        }
+        return current;
+    }
+
+    @SuppressWarnings("unchecked")
+    private void apply(String path, Object value) {
+        String[] segments = path.split("/");
+        if (value == null) {
+            removeAt(root, segments, 0);
+            return;
+        }
+        Map<String, Object> parent = root;
+        for (int i = 0; i < segments.length - 1; i++) {
+            Object child = parent.get(segments[i]);
+            if (!(child instanceof Map)) {
+                child = new TreeMap<String, Object>();
+                parent.put(segments[i], child);
+            }
+            parent = (Map<String, Object>) child;
+        }
+        parent.put(segments[segments.length - 1], value);
+    }
+
+    // Removes the value and prunes parents left empty, as Firebase does
+    @SuppressWarnings("unchecked")
+    private static void removeAt(Map<String, Object> parent, String[] segments, int index) {
+        if (index == segments.length - 1) {
+            parent.remove(segments[index]);
+            return;
+        }
+        if (parent.get(segments[index]) instanceof Map<?, ?> child) {
+            removeAt((Map<String, Object>) child, segments, index + 1);
+            if (child.isEmpty()) {
+                parent.remove(segments[index]);
+            }
+        }
+    }
+
+    // Node -> child keys affected by writes to the given paths
+    private Map<String, Set<String>> touchedChildren(Set<String> paths) {
+        Map<String, Set<String>> touched = new LinkedHashMap<>();
+        for (String path : paths) {
+            String[] segments = path.split("/");
+            Set<String> keys = touched.computeIfAbsent(segments[0], node -> new LinkedHashSet<>());
+            if (segments.length > 1) {
+                keys.add(segments[1]);
+            } else if (root.get(segments[0]) instanceof Map<?, ?> nodeMap) {
+                // A write to the whole node touches every child it has
+                nodeMap.keySet().forEach(key -> keys.add((String) key));
+            }
+        }
+        return touched;
+    }
+
+    private void notifyWatchers(Map<String, Set<String>> touched) {
+        touched.forEach((node, keys) -> {
+            List<Watch<?>> nodeWatches = watches.get(node);
+            if (nodeWatches == null) {
+                return;
+            }
+            for (String key : keys) {
+                Object value = resolve(node + "/" + key);
+                nodeWatches.forEach(watch -> deliver(watch, key, value));
+            }
+        });
+    }
+
+    private <T> void deliver(Watch<T> watch, String key, Object value) {
+        if (value == null) {
+            watch.watcher().onChildRemoved(key);
+        } else {
+            watch.watcher().onChildChanged(key, objectMapper.convertValue(value, watch.type()));
+        }
+    }
+
+    // Converts beans to maps, lists and scalars, dropping nulls and empty objects like Firebase does
+    private Object toPlain(Object value) {
+        return value == null ? null : normalize(objectMapper.convertValue(value, Object.class));
+    }
+
+    private static Object normalize(Object value) {
+        if (value instanceof Map<?, ?> map) {
+            TreeMap<String, Object> normalized = new TreeMap<>();
+            map.forEach((key, child) -> {
+                Object normalizedChild = normalize(child);
+                if (normalizedChild != null) {
+                    normalized.put(String.valueOf(key), normalizedChild);
+                }
+            });
+            return normalized.isEmpty() ? null : normalized;
+        }
+        if (value instanceof List<?> list) {
+            List<Object> normalized = new ArrayList<>();
+            for (Object child : list) {
+                normalized.add(normalize(child));
+            }
+            return normalized;
+        }
+        return value;
+    }
+
+    private static String normalizePath(String path) {
+        String normalized = path.replaceAll("^/+|/+$", "");
+        if (normalized.isEmpty()) {
+            throw new IllegalArgumentException("Path must not be empty");
+        }
+        return normalized;
+    }
+
+    private record Watch<T>(Class<T> type, ChildWatcher<T> watcher) {
+    }
+}
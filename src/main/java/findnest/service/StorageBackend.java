@@ -0,0 +1,54 @@
+package findnest.service;
+
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.function.UnaryOperator;
+
+/**
+ * Storage SPI used by the services in place of direct {@code DatabaseReference} calls.
+ *
+ * Data is addressed with slash-separated paths into a JSON-like tree, the same way Firebase
+ * Realtime Database is (e.g. {@code items/<id>/status}). Writing null removes a value.
+ * Children are always returned in key order. The backend is selected with
+ * {@code findnest.storage.backend} ({@code firebase} or {@code local}).
+ */
+public interface StorageBackend {
+
+    // New unique, time-ordered key for a child of the node, generated without a round-trip
+    String newKey(String node);
+
+    // Value at the path, or null when nothing is stored there
+    <T> CompletableFuture<T> get(String path, Class<T> type);
+
+    // Every child of the node, keyed and ordered by key
+    <T> CompletableFuture<Map<String, T>> getChildren(String node, Class<T> type);
+
+    // Up to limit children with keys strictly after afterKey (or from the start when null)
+    <T> CompletableFuture<Map<String, T>> getChildrenPage(String node, String afterKey, int limit, Class<T> type);
+
+    CompletableFuture<Void> set(String path, Object value);
+
+    CompletableFuture<Void> remove(String path);
+
+    // Atomic multi-location write; keys are paths relative to basePath ("" for the root)
+    CompletableFuture<Void> update(String basePath, Map<String, Object> values);
+
+    // Atomically replaces the value at the path with mutator(current). The mutator is never given
+    // a missing value, so the write cannot recreate a deleted node, and returns null to leave the
+    // value as it is; it may run more than once. Completes with the value written, or null if none.
+    <T> CompletableFuture<T> transaction(String path, Class<T> type, UnaryOperator<T> mutator);
+
+    // Streams the current children of the node and then every later change to them
+    <T> void watch(String node, Class<T> type, ChildWatcher<T> watcher);
+
+    interface ChildWatcher<T> {
+        void onChildChanged(String key, T value);
+
+        void onChildRemoved(String key);
+
+        // Called once every child that existed when watching started has been delivered
+        void onLoaded();
+
+        void onCancelled(Exception error);
+    }
+}
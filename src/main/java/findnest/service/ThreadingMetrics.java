@@ -0,0 +1,80 @@
+package findnest.service;
+
+import findnest.model.ThreadStats;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Tracks Firebase calls in flight alongside the platform threads serving them, so the
+ * platform-thread and virtual-thread modes can be compared under the same load.
+ * The in-flight counts are also published as gauges, and time spent blocked on a future
+ * is recorded as {@code findnest.blocked.wait}.
+ */
+@Component
+public class ThreadingMetrics {
+
+    private final boolean virtualThreadsEnabled;
+    private final AtomicLong inFlight = new AtomicLong();
+    private final AtomicLong peakInFlight = new AtomicLong();
+    private final MeterRegistry registry;
+    private final Map<String, Timer> waitTimers = new ConcurrentHashMap<>();
+
+    public ThreadingMetrics(@Value("${spring.threads.virtual.enabled:false}") boolean virtualThreadsEnabled,
+                            MeterRegistry registry) {
+        this.virtualThreadsEnabled = virtualThreadsEnabled;
+        this.registry = registry;
+        Gauge.builder("findnest.firebase.calls.inflight", inFlight, AtomicLong::get).register(registry);
+        Gauge.builder("findnest.firebase.calls.inflight.peak", peakInFlight, AtomicLong::get).register(registry);
+    }
+
+    public void callStarted() {
+        long current = inFlight.incrementAndGet();
+        peakInFlight.accumulateAndGet(current, Math::max);
+    }
+
+    public void callFinished() {
+        inFlight.decrementAndGet();
+    }
+
+    // Blocks on the future, recording how long the calling thread was held up
+    public <T> T await(Future<T> future, String service) throws InterruptedException, ExecutionException {
+        long start = System.nanoTime();
+        try {
+            return future.get();
+        } finally {
+            waitTimers.computeIfAbsent(service, key -> Timer.builder("findnest.blocked.wait")
+                    .tag("service", key)
+                    .register(registry))
+                    .record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+        }
+    }
+
+    public ThreadStats getStats() {
+        ThreadMXBean threads = ManagementFactory.getThreadMXBean();
+        int tomcatWorkers = 0;
+        int carriers = 0;
+        // Only platform threads are listed here; virtual threads are not
+        for (Thread thread : Thread.getAllStackTraces().keySet()) {
+            if (thread.getName().startsWith("http-nio-") && thread.getName().contains("-exec-")) {
+                tomcatWorkers++;
+            } else if (thread.getClass().getName().equals("jdk.internal.misc.CarrierThread")) {
+                carriers++;
+            }
+        }
+        return new ThreadStats(virtualThreadsEnabled, threads.getThreadCount(), threads.getPeakThreadCount(),
+                tomcatWorkers, carriers, inFlight.get(), peakInFlight.get());
+    }
+}
@@ -0,0 +1,178 @@
+package findnest.service;
+
+import jakarta.annotation.PreDestroy;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import javax.imageio.IIOImage;
+import javax.imageio.ImageIO;
+import javax.imageio.ImageWriteParam;
+import javax.imageio.ImageWriter;
+import javax.imageio.stream.ImageOutputStream;
+import java.awt.Color;
+import java.awt.Graphics2D;
+import java.awt.RenderingHints;
+import java.awt.image.BufferedImage;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.HexFormat;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Generates JPEG thumbnails of uploaded images on a bounded worker pool.
+ *
+ * Each thumbnail is stored under a name derived from the original URL, so regenerating it
+ * overwrites the same object. When the queue is full new work is rejected rather than
+ * queued without bound. A rejected or failed request fails its future, so callers leave the
+ * thumbnail unset and try again later instead of saving the original in its place.
+ */
+@Component
+public class ThumbnailService {
+
+    private static final Logger log = LoggerFactory.getLogger(ThumbnailService.class);
+
+    private static final String THUMBNAIL_PREFIX = "thumbnails/";
+
+    private final ImageStore imageStore;
+    private final int maxDimension;
+    private final float quality;
+    private final ThreadPoolExecutor executor;
+    private final AtomicLong generated = new AtomicLong();
+    private final AtomicLong failed = new AtomicLong();
+    private final AtomicLong rejected = new AtomicLong();
+
+    public ThumbnailService(ImageStore imageStore,
+                            @Value("${findnest.images.thumbnail.max-dimension:320}") int maxDimension,
+                            @Value("${findnest.images.thumbnail.quality:0.8}") float quality,
+                            @Value("${findnest.images.workers:2}") int workers,
+                            @Value("${findnest.images.queue-size:500}") int queueSize) {
+        this.imageStore = imageStore;
+        this.maxDimension = maxDimension;
+        this.quality = quality;
+        AtomicInteger counter = new AtomicInteger();
+        this.executor = new ThreadPoolExecutor(workers, workers, 0, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(queueSize), runnable -> {
+                    Thread thread = new Thread(runnable, "thumbnail-" + counter.getAndIncrement());
+                    thread.setDaemon(true);
+                    return thread;
+                });
+    }
+
+    // Thumbnail URLs in the same order; fails if any image cannot be processed
+    public CompletableFuture<List<String>> createThumbnails(List<String> originalUrls) {
+        try {
+            return CompletableFuture.supplyAsync(() -> {
+                List<String> thumbnails = new ArrayList<>(originalUrls.size());
+                for (String url : originalUrls) {
+                    thumbnails.add(thumbnail(url));
+                }
+                return thumbnails;
+            }, executor);
+        } catch (RejectedExecutionException e) {
+            rejected.incrementAndGet();
+            return CompletableFuture.failedFuture(e);
+        }
+    }
+
+    public CompletableFuture<String> createThumbnail(String originalUrl) {
+        return createThumbnails(List.of(originalUrl)).thenApply(thumbnails -> thumbnails.get(0));
+    }
+
+    public int getQueuedCount() {
+        return executor.getQueue().size();
+    }
+
+    public long getGeneratedCount() {
+        return generated.get();
+    }
+
+    public long getFailedCount() {
+        return failed.get();
+    }
+
+    public long getRejectedCount() {
+        return rejected.get();
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        executor.shutdownNow();
+    }
+
+    private String thumbnail(String url) {
+        if (url == null || url.isEmpty()) {
+            return url;
+        }
+        try {
+            byte[] thumbnail = resize(imageStore.read(url));
+            String thumbnailUrl = imageStore.write(THUMBNAIL_PREFIX + hash(url) + ".jpg", thumbnail, "image/jpeg");
+            generated.incrementAndGet();
+            return thumbnailUrl;
+        } catch (IOException | RuntimeException e) {
+            failed.incrementAndGet();
+            log.warn("Error creating thumbnail for {}", url, e);
+            throw new CompletionException(e);
+        }
+    }
+
+    // Scales down to fit maxDimension, never up, flattening transparency onto white for JPEG
+    byte[] resize(byte[] original) throws IOException {
+        BufferedImage source = ImageIO.read(new ByteArrayInputStream(original));
+        if (source == null) {
+            throw new IOException("Unsupported image format");
+        }
+        double scale = Math.min(1.0, (double) maxDimension / Math.max(source.getWidth(), source.getHeight()));
+        int width = Math.max(1, (int) Math.round(source.getWidth() * scale));
+        int height = Math.max(1, (int) Math.round(source.getHeight() * scale));
+
+        BufferedImage target = new BufferedImage(width, height, BufferedImage.TYPE_INT_RGB);
+        Graphics2D graphics = target.createGraphics();
+        try {
+            graphics.setRenderingHint(RenderingHints.KEY_INTERPOLATION, RenderingHints.VALUE_INTERPOLATION_BILINEAR);
+            graphics.setRenderingHint(RenderingHints.KEY_RENDERING, RenderingHints.VALUE_RENDER_QUALITY);
+            graphics.setColor(Color.WHITE);
+            graphics.fillRect(0, 0, width, height);
+            graphics.drawImage(source, 0, 0, width, height, null);
+        } finally {
+            graphics.dispose();
+        }
+
+        ImageWriter writer = ImageIO.getImageWritersByFormatName("jpeg").next();
+        ByteArrayOutputStream output = new ByteArrayOutputStream();
+        try (ImageOutputStream imageOutput = ImageIO.createImageOutputStream(output)) {
+            ImageWriteParam param = writer.getDefaultWriteParam();
+            param.setCompressionMode(ImageWriteParam.MODE_EXPLICIT);
+            param.setCompressionQuality(quality);
+            writer.setOutput(imageOutput);
+            writer.write(null, new IIOImage(target, null, null), param);
+        } finally {
+            writer.dispose();
+        }
+        return output.toByteArray();
+    }
+
+    private static String hash(String url) {
+        try {
+            byte[] digest = MessageDigest.getInstance("SHA-256").digest(url.getBytes(StandardCharsets.UTF_8));
+            return HexFormat.of().formatHex(digest);
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 not available", e);
+        }
+    }
+}
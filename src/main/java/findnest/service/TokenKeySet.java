@@ -0,0 +1,120 @@
+package findnest.service;
+
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.math.BigInteger;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+import java.security.GeneralSecurityException;
+import java.security.KeyFactory;
+import java.security.PublicKey;
+import java.security.cert.CertificateFactory;
+import java.security.spec.RSAPublicKeySpec;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Base64;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Public keys used to check ID token signatures when tokens are verified locally.
+ *
+ * Keys come from findnest.auth.keys-file when it is set, so verification works offline, or
+ * from findnest.auth.keys-url otherwise. Both Google's x509 certificate map (kid to PEM) and
+ * JWKS documents are accepted. The set is reloaded in the background, never on a request.
+ */
+@Component
+@ConditionalOnProperty(name = "findnest.auth.verifier", havingValue = "local")
+public class TokenKeySet {
+
+    private static final Logger log = LoggerFactory.getLogger(TokenKeySet.class);
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+    private final HttpClient httpClient = HttpClient.newBuilder().connectTimeout(Duration.ofSeconds(10)).build();
+    private final String keysFile;
+    private final String keysUrl;
+
+    private volatile Map<String, PublicKey> keys = Map.of();
+    private volatile Instant refreshedAt;
+
+    public TokenKeySet(@Value("${findnest.auth.keys-file:}") String keysFile,
+                       @Value("${findnest.auth.keys-url:https://www.googleapis.com/robot/v1/metadata/x509/securetoken@system.gserviceaccount.com}") String keysUrl) {
+        this.keysFile = keysFile;
+        this.keysUrl = keysUrl;
+        refresh();
+    }
+
+    public PublicKey get(String keyId) {
+        return keyId == null ? null : keys.get(keyId);
+    }
+
+    public int size() {
+        return keys.size();
+    }
+
+    public Instant getRefreshedAt() {
+        return refreshedAt;
+    }
+
+    // A failed reload keeps the previous keys, so a network blip does not reject valid tokens
+    @Scheduled(initialDelayString = "${findnest.auth.keys-refresh-ms:3600000}",
+            fixedDelayString = "${findnest.auth.keys-refresh-ms:3600000}")
+    public void refresh() {
+        try {
+            keys = parse(keysFile.isEmpty() ? fetch(keysUrl) : Files.readString(Paths.get(keysFile)));
+            refreshedAt = Instant.now();
+            log.info("Loaded {} token signing keys.", keys.size());
+        } catch (IOException | GeneralSecurityException | RuntimeException e) {
+            log.error("Error loading token signing keys", e);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private String fetch(String url) throws IOException, InterruptedException {
+        HttpRequest request = HttpRequest.newBuilder(URI.create(url)).timeout(Duration.ofSeconds(10)).GET().build();
+        HttpResponse<String> response = httpClient.send(request, HttpResponse.BodyHandlers.ofString());
+        if (response.statusCode() != 200) {
+            throw new IOException("Key set request returned HTTP " + response.statusCode());
+        }
+        return response.body();
+    }
+
+    private Map<String, PublicKey> parse(String json) throws IOException, GeneralSecurityException {
+        Map<String, Object> document = objectMapper.readValue(json, new TypeReference<Map<String, Object>>() {});
+        Map<String, PublicKey> parsed = new HashMap<>();
+        if (document.get("keys") instanceof List<?> jwks) {
+            KeyFactory keyFactory = KeyFactory.getInstance("RSA");
+            for (Object entry : jwks) {
+                if (entry instanceof Map<?, ?> jwk && "RSA".equals(jwk.get("kty"))) {
+                    BigInteger modulus = new BigInteger(1, Base64.getUrlDecoder().decode((String) jwk.get("n")));
+                    BigInteger exponent = new BigInteger(1, Base64.getUrlDecoder().decode((String) jwk.get("e")));
+                    parsed.put((String) jwk.get("kid"), keyFactory.generatePublic(new RSAPublicKeySpec(modulus, exponent)));
+                }
+            }
+        } else {
+            CertificateFactory certificates = CertificateFactory.getInstance("X.509");
+            for (Map.Entry<String, Object> entry : document.entrySet()) {
+                byte[] pem = ((String) entry.getValue()).getBytes(StandardCharsets.US_ASCII);
+                parsed.put(entry.getKey(), certificates.generateCertificate(new ByteArrayInputStream(pem)).getPublicKey());
+            }
+        }
+        return Map.copyOf(parsed);
+    }
+}
@@ -0,0 +1,208 @@
+package findnest.service;
+
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.google.firebase.auth.FirebaseAuth;
+import com.google.firebase.auth.FirebaseAuthException;
+import com.google.firebase.auth.FirebaseToken;
+import findnest.model.AuthStats;
+import findnest.model.VerifiedToken;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.security.GeneralSecurityException;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.security.PublicKey;
+import java.security.Signature;
+import java.time.Instant;
+import java.util.Base64;
+import java.util.HexFormat;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Verifies Firebase ID tokens once and caches the result until the token expires.
+ *
+ * Tokens are cached under their SHA-256 hash, so raw tokens are never held in memory.
+ * With findnest.auth.verifier=firebase (the default) verification goes through the Admin SDK;
+ * with local it is done here against {@link TokenKeySet}, which needs no network when the
+ * keys come from a file.
+ */
+@Component
+public class TokenVerifier {
+
+    private static final long CLOCK_SKEW_SECONDS = 60;
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+    // Least recently used first, so a full cache drops the sessions that have gone quiet
+    private final Map<String, VerifiedToken> cache;
+    private final Optional<TokenKeySet> keySet;
+    private final String projectId;
+    private final int maxCachedTokens;
+
+    private final AtomicLong hits = new AtomicLong();
+    private final AtomicLong misses = new AtomicLong();
+    private final AtomicLong failures = new AtomicLong();
+    private final AtomicLong verificationNanos = new AtomicLong();
+    private final AtomicLong maxVerificationNanos = new AtomicLong();
+
+    public TokenVerifier(Optional<TokenKeySet> keySet,
+                         @Value("${findnest.auth.project-id:}") String projectId,
+                         @Value("${findnest.auth.cache.max-size:10000}") int maxCachedTokens) {
+        if (keySet.isPresent() && projectId.isBlank()) {
+            // Every token would fail the audience check
+            throw new IllegalStateException("findnest.auth.project-id must be set when findnest.auth.verifier=local");
+        }
+        this.keySet = keySet;
+        this.projectId = projectId;
+        this.maxCachedTokens = maxCachedTokens;
+        this.cache = new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, VerifiedToken> eldest) {
+                return size() > TokenVerifier.this.maxCachedTokens;
+            }
+        };
+    }
+
+    public VerifiedToken verify(String idToken) {
+        String hash = hash(idToken);
+        VerifiedToken cached;
+        synchronized (cache) {
+            cached = cache.get(hash);
+        }
+        if (cached != null && cached.getExpiresAt() > Instant.now().getEpochSecond()) {
+            hits.incrementAndGet();
+            return cached;
+        }
+        misses.incrementAndGet();
+
+        long start = System.nanoTime();
+        try {
+            VerifiedToken token = keySet.isPresent() ? verifyLocally(idToken, keySet.get()) : verifyWithFirebase(idToken);
+            synchronized (cache) {
+                cache.put(hash, token);
+            }
+            return token;
+        } catch (TokenVerificationException e) {
+            failures.incrementAndGet();
+            throw e;
+        } finally {
+            long elapsed = System.nanoTime() - start;
+            verificationNanos.addAndGet(elapsed);
+            maxVerificationNanos.accumulateAndGet(elapsed, Math::max);
+        }
+    }
+
+    // Drop expired tokens so the cache only holds sessions that are still live
+    @Scheduled(fixedDelayString = "${findnest.auth.cache.purge-interval-ms:60000}")
+    public void purgeExpired() {
+        long now = Instant.now().getEpochSecond();
+        synchronized (cache) {
+            cache.values().removeIf(token -> token.getExpiresAt() <= now);
+        }
+    }
+
+    public AuthStats getStats() {
+        long verifications = misses.get();
+        double averageMs = verifications == 0 ? 0 : verificationNanos.get() / 1_000_000.0 / verifications;
+        Instant refreshedAt = keySet.map(TokenKeySet::getRefreshedAt).orElse(null);
+        int cachedTokens;
+        synchronized (cache) {
+            cachedTokens = cache.size();
+        }
+        return new AuthStats(keySet.isPresent() ? "local" : "firebase", cachedTokens, hits.get(), verifications,
+                failures.get(), averageMs, maxVerificationNanos.get() / 1_000_000.0,
+                keySet.map(TokenKeySet::size).orElse(0), refreshedAt == null ? null : refreshedAt.toString());
+    }
+
+    private VerifiedToken verifyWithFirebase(String idToken) {
+        try {
+            FirebaseToken decoded = FirebaseAuth.getInstance().verifyIdToken(idToken);
+            Object exp = decoded.getClaims().get("exp");
+            long expiresAt = exp instanceof Number number ? number.longValue() : 0;
+            return new VerifiedToken(decoded.getUid(), decoded.getEmail(), expiresAt, decoded.getClaims());
+        } catch (FirebaseAuthException | IllegalArgumentException e) {
+            throw new TokenVerificationException("Invalid ID token: " + e.getMessage(), e);
+        } catch (IllegalStateException e) {
+            // No default FirebaseApp, e.g. running against local storage without credentials
+            throw new TokenVerificationException("Token verification is unavailable: " + e.getMessage(), e);
+        }
+    }
+
+    // The same checks the Admin SDK makes: RS256 signature by a current key, expiry, audience and issuer
+    private VerifiedToken verifyLocally(String idToken, TokenKeySet keys) {
+        String[] parts = idToken.split("\\.");
+        if (parts.length != 3) {
+            throw new TokenVerificationException("Malformed ID token");
+        }
+        Map<String, Object> header = decodeJson(parts[0]);
+        Map<String, Object> claims = decodeJson(parts[1]);
+
+        if (!"RS256".equals(header.get("alg"))) {
+            throw new TokenVerificationException("Unexpected signing algorithm: " + header.get("alg"));
+        }
+        PublicKey key = header.get("kid") instanceof String keyId ? keys.get(keyId) : null;
+        if (key == null) {
+            throw new TokenVerificationException("Unknown signing key: " + header.get("kid"));
+        }
+        try {
+            Signature signature = Signature.getInstance("SHA256withRSA");
+            signature.initVerify(key);
+            signature.update((parts[0] + "." + parts[1]).getBytes(StandardCharsets.US_ASCII));
+            if (!signature.verify(Base64.getUrlDecoder().decode(parts[2]))) {
+                throw new TokenVerificationException("Invalid ID token signature");
+            }
+        } catch (GeneralSecurityException | IllegalArgumentException e) {
+            throw new TokenVerificationException("Invalid ID token signature", e);
+        }
+
+        long now = Instant.now().getEpochSecond();
+        long expiresAt = epochSeconds(claims.get("exp"));
+        if (expiresAt <= now - CLOCK_SKEW_SECONDS) {
+            throw new TokenVerificationException("ID token has expired");
+        }
+        if (epochSeconds(claims.get("iat")) > now + CLOCK_SKEW_SECONDS) {
+            throw new TokenVerificationException("ID token issued in the future");
+        }
+        if (!projectId.equals(claims.get("aud"))
+                || !("https://securetoken.google.com/" + projectId).equals(claims.get("iss"))) {
+            throw new TokenVerificationException("ID token was issued for a different project");
+        }
+        Object subject = claims.get("sub");
+        if (!(subject instanceof String uid) || uid.isEmpty()) {
+            throw new TokenVerificationException("ID token has no subject");
+        }
+        return new VerifiedToken(uid, (String) claims.get("email"), expiresAt, claims);
+    }
+
+    private Map<String, Object> decodeJson(String part) {
+        try {
+            return objectMapper.readValue(Base64.getUrlDecoder().decode(part), new TypeReference<Map<String, Object>>() {});
+        } catch (IOException | IllegalArgumentException e) {
+            throw new TokenVerificationException("Malformed ID token", e);
+        }
+    }
+
+    private static long epochSeconds(Object claim) {
+        if (!(claim instanceof Number number)) {
+            throw new TokenVerificationException("ID token is missing a time claim");
+        }
+        return number.longValue();
+    }
+
+    private static String hash(String token) {
+        try {
+            byte[] digest = MessageDigest.getInstance("SHA-256").digest(token.getBytes(StandardCharsets.UTF_8));
+            return HexFormat.of().formatHex(digest);
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 not available", e);
+        }
+    }
+}
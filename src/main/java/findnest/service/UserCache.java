@@ -0,0 +1,88 @@
+package findnest.service;
+
+import findnest.model.User;
+import findnest.model.UserCacheStats;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Bounded read-through cache of user profiles, keyed by user id.
+ *
+ * Entries are evicted least-recently-used once maxSize is reached and expire ttlMs after
+ * they were loaded. Writes made through {@link UserServiceImpl} invalidate their entry; changes
+ * made elsewhere are picked up once the entry expires, so no listener syncs the whole node.
+ */
+@Component
+public class UserCache {
+
+    private final int maxSize;
+    private final long ttlMs;
+    private final Map<String, Entry> entries;
+
+    private long hits;
+    private long misses;
+    private long evictions;
+    private long expirations;
+    private long invalidations;
+
+    public UserCache(@Value("${findnest.users.cache.max-size:10000}") int maxSize,
+                     @Value("${findnest.users.cache.ttl-ms:300000}") long ttlMs) {
+        this.maxSize = maxSize;
+        this.ttlMs = ttlMs;
+        // Access order makes the eldest entry the least recently used one
+        this.entries = new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, Entry> eldest) {
+                if (size() > UserCache.this.maxSize) {
+                    evictions++;
+                    return true;
+                }
+                return false;
+            }
+        };
+    }
+
+    // Cached profile, or null on a miss or an expired entry
+    public synchronized User get(String id) {
+        Entry entry = entries.get(id);
+        if (entry == null) {
+            misses++;
+            return null;
+        }
+        if (entry.expiresAt() <= System.currentTimeMillis()) {
+            entries.remove(id);
+            expirations++;
+            misses++;
+            return null;
+        }
+        hits++;
+        return entry.user();
+    }
+
+    public synchronized void put(String id, User user) {
+        if (id == null || user == null) {
+            return;
+        }
+        entries.put(id, new Entry(user, System.currentTimeMillis() + ttlMs));
+    }
+
+    public synchronized void invalidate(String id) {
+        if (entries.remove(id) != null) {
+            invalidations++;
+        }
+    }
+
+    public synchronized UserCacheStats getStats() {
+        long lookups = hits + misses;
+        double hitRate = lookups == 0 ? 0 : (double) hits / lookups;
+        return new UserCacheStats(entries.size(), maxSize, ttlMs, hits, misses, evictions, expirations,
+                invalidations, hitRate);
+    }
+
+    private record Entry(User user, long expiresAt) {
+    }
+}
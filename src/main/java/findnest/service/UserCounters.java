@@ -0,0 +1,134 @@
+package findnest.service;
+
+import findnest.model.User;
+import findnest.model.UserCounts;
+
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+
+/**
+ * User totals by role and department, maintained incrementally from user writes and
+ * corrected by the periodic reconcile, so the count endpoints never download the whole node.
+ *
+ * Only each user's role and department are kept, which is enough to undo a user's
+ * previous contribution when it changes or is removed. Users written between
+ * {@link #beginReload()} and the matching reset keep their current counts, since the
+ * reconcile snapshot may predate those writes.
+ */
+@Component
+public class UserCounters {
+
+    private final Map<String, Profile> profiles = new HashMap<>();
+    private final Map<String, Long> roleCounts = new HashMap<>();
+    private final Map<String, Long> departmentCounts = new HashMap<>();
+    // Reconciles whose snapshot is still being read
+    private final List<Reload> reloads = new ArrayList<>();
+    private volatile boolean loaded = false;
+
+    // True once a reconcile has counted every existing user
+    public boolean isLoaded() {
+        return loaded;
+    }
+
+    public synchronized void put(String id, User user) {
+        if (id == null || user == null) {
+            return;
+        }
+        reloads.forEach(reload -> reload.changed.add(id));
+        Profile profile = new Profile(user.getRole(), user.getDepartment());
+        Profile previous = profiles.put(id, profile);
+        if (previous != null) {
+            apply(previous, -1);
+        }
+        apply(profile, 1);
+    }
+
+    public synchronized void remove(String id) {
+        if (id != null) {
+            reloads.forEach(reload -> reload.changed.add(id));
+        }
+        Profile previous = id == null ? null : profiles.remove(id);
+        if (previous != null) {
+            apply(previous, -1);
+        }
+    }
+
+    // Call before reading the snapshot that will be passed to reset
+    public synchronized Reload beginReload() {
+        Reload reload = new Reload();
+        reloads.add(reload);
+        return reload;
+    }
+
+    // Replace the counts with a fresh read of the database, keeping users written since the read began
+    public synchronized void reset(Reload reload, Map<String, User> users) {
+        reloads.remove(reload);
+        Map<String, Profile> current = new HashMap<>(profiles);
+        profiles.clear();
+        roleCounts.clear();
+        departmentCounts.clear();
+        users.forEach((id, user) -> {
+            if (id != null && user != null && !reload.changed.contains(id)) {
+                add(id, new Profile(user.getRole(), user.getDepartment()));
+            }
+        });
+        reload.changed.forEach(id -> {
+            Profile profile = current.get(id);
+            if (profile != null) {
+                add(id, profile);
+            }
+        });
+        loaded = true;
+    }
+
+    public synchronized void abandon(Reload reload) {
+        reloads.remove(reload);
+    }
+
+    public synchronized int getTotal() {
+        return profiles.size();
+    }
+
+    public synchronized UserCounts getCounts() {
+        return new UserCounts(profiles.size(), new TreeMap<>(roleCounts), new TreeMap<>(departmentCounts));
+    }
+
+    private void add(String id, Profile profile) {
+        profiles.put(id, profile);
+        apply(profile, 1);
+    }
+
+    private void apply(Profile profile, int delta) {
+        adjust(roleCounts, profile.role(), delta);
+        adjust(departmentCounts, profile.department(), delta);
+    }
+
+    private static void adjust(Map<String, Long> counts, String key, int delta) {
+        if (key == null || key.isEmpty()) {
+            return;
+        }
+        long count = counts.getOrDefault(key, 0L) + delta;
+        if (count <= 0) {
+            counts.remove(key);
+        } else {
+            counts.put(key, count);
+        }
+    }
+
+    private record Profile(String role, String department) {
+    }
+
+    public static final class Reload {
+        private final Set<String> changed = new HashSet<>();
+
+        private Reload() {
+        }
+    }
+}
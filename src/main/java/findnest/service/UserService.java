@@ -1,14 +1,19 @@
 package findnest.service;
 
 import findnest.model.User;
+import findnest.model.UserCounts;
+import java.util.Collection;
 import java.util.List;
+import java.util.Map;
 
 public interface UserService {
     User createUser(User user);
     User getUserById(String id);
+    Map<String, User> getUsersByIds(Collection<String> ids);
     List<User> getAllUsers();
     User updateUser(User user);
     void deleteUser(String id);
     int getUserCount();
+    UserCounts getUserCountsBreakdown();
     void updateProfilePicture(String id, String profilePictureUrl);
 }
@@ -1,24 +1,22 @@
 package findnest.service;
 
-import com.google.firebase.database.DatabaseReference;
-import com.google.firebase.database.FirebaseDatabase;
-import com.google.api.core.ApiFuture;
-import com.google.api.core.ApiFutureCallback;
-import com.google.api.core.ApiFutures;
-import com.google.common.util.concurrent.MoreExecutors;
 import com.google.firebase.auth.FirebaseAuth;
 import com.google.firebase.auth.FirebaseAuthException;
-import com.google.firebase.database.DataSnapshot;
-import com.google.firebase.database.DatabaseError;
-import com.google.firebase.database.ValueEventListener;
 import com.google.firebase.auth.UserRecord;
 import findnest.model.User;
+import findnest.model.UserCounts;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.scheduling.annotation.Scheduled;
 import org.springframework.stereotype.Service;
-import com.google.firebase.database.DatabaseReference.CompletionListener;
 import java.util.concurrent.CompletableFuture;
 import java.util.concurrent.ExecutionException;
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
 import java.util.List;
 import java.util.ArrayList;
+import java.util.Map;
 import java.time.Instant;
 
 
@@ -26,12 +24,45 @@ import java.time.Instant;
 @Service
 public class UserServiceImpl implements UserService {
 
-    private final DatabaseReference databaseReference;
-    private final FirebaseAuth firebaseAuth;
+    private static final Logger log = LoggerFactory.getLogger(UserServiceImpl.class);
 
-    public UserServiceImpl() {
-        this.databaseReference = FirebaseDatabase.getInstance().getReference("users");
-        this.firebaseAuth = FirebaseAuth.getInstance();
+    private static final String USERS = "users";
+
+    private final StorageBackend storage;
+    private final UserCache userCache;
+    private final UserCounters userCounters;
+    private final ThreadingMetrics threadingMetrics;
+    private final ThumbnailService thumbnailService;
+
+    public UserServiceImpl(StorageBackend storage, UserCache userCache, UserCounters userCounters,
+                           ThreadingMetrics threadingMetrics, ThumbnailService thumbnailService) {
+        this.storage = storage;
+        this.userCache = userCache;
+        this.userCounters = userCounters;
+        this.threadingMetrics = threadingMetrics;
+        this.thumbnailService = thumbnailService;
+        // Counters start from one read; the cache fills on demand and relies on TTL plus invalidation
+        reconcileUsers();
+    }
+
+    // Periodically recount from the database to correct any drift
+    @Scheduled(initialDelayString = "${findnest.users.reconcile-interval-ms:600000}",
+            fixedDelayString = "${findnest.users.reconcile-interval-ms:600000}")
+    public void reconcileUsers() {
+        UserCounters.Reload reload = userCounters.beginReload();
+        storage.getChildren(USERS, User.class).whenComplete((users, error) -> {
+            if (error != null) {
+                userCounters.abandon(reload);
+                log.error("Error reconciling user counts", error);
+            } else {
+                userCounters.reset(reload, users);
+            }
+        });
+    }
+
+    // Resolved on use so the service can start against the local storage backend without Firebase
+    private FirebaseAuth firebaseAuth() {
+        return FirebaseAuth.getInstance();
     }
 
     @Override
@@ -41,89 +72,87 @@ public class UserServiceImpl implements UserService {
                 .setEmail(user.getEmail())
                 .setPassword(user.getPassword())
                 .setDisplayName(user.getFirstName() + " " + user.getLastName());
-    
+
         try {
-            UserRecord firebaseUser = firebaseAuth.createUser(createRequest);
+            UserRecord firebaseUser = firebaseAuth().createUser(createRequest);
             user.setId(firebaseUser.getUid()); // Set the UID from Firebase Auth
-    
+
             // Get current timestamp as a formatted string
             String timestamp = Instant.now().toString(); // You can use a different format if preferred
-    
+
             // Set the timestamps
             user.setCreatedAt(timestamp);
             user.setUpdatedAt(timestamp);
             user.setPassword(null);
-            // Save user details to Firebase Realtime Database
-            databaseReference.child(user.getId()).setValue(user, new DatabaseReference.CompletionListener() {
-                @Override
-                public void onComplete(DatabaseError error, DatabaseReference ref) {
-                    if (error != null) {
-                        System.err.println("Error saving user data: " + error.getMessage());
-                        throw new RuntimeException("Error saving user data", error.toException());
-                    } else {
-                        System.out.println("User data saved successfully.");
-                    }
+            userCounters.put(user.getId(), user);
+            // Save user details to the database
+            storage.set(userPath(user.getId()), user).whenComplete((result, error) -> {
+                if (error != null) {
+                    log.error("Error saving user data", error);
+                } else {
+                    log.info("User data saved successfully.");
+                    scheduleProfileThumbnail(user.getId(), user.getProfilePicture());
                 }
             });
-    
+
             return user;
         } catch (FirebaseAuthException e) {
             throw new RuntimeException("Error creating Firebase user", e);
         }
     }
-    
+
 
     @Override
     public User getUserById(String id) {
-        CompletableFuture<User> future = new CompletableFuture<>();
-
-        databaseReference.child(id).addListenerForSingleValueEvent(new ValueEventListener() {
-            @Override
-            public void onDataChange(DataSnapshot snapshot) {
-                if (snapshot.exists()) {
-                    User user = snapshot.getValue(User.class);
-                    future.complete(user);
-                } else {
-                    future.complete(null);
-                }
-            }
-
-            @Override
-            public void onCancelled(DatabaseError error) {
-                future.completeExceptionally(error.toException());
-            }
-        });
-
+        User cached = userCache.get(id);
+        if (cached != null) {
+            return cached;
+        }
         try {
-            return future.get();
+            User user = threadingMetrics.await(storage.get(userPath(id), User.class), USERS);
+            userCache.put(id, user);
+            return user;
         } catch (InterruptedException | ExecutionException e) {
             throw new RuntimeException("Error retrieving user", e);
         }
     }
 
+    // Cache misses are read concurrently, so a page of items costs one round-trip instead of one per user
     @Override
-    public List<User> getAllUsers() {
-        CompletableFuture<List<User>> future = new CompletableFuture<>();
-
-        databaseReference.addListenerForSingleValueEvent(new ValueEventListener() {
-            @Override
-            public void onDataChange(DataSnapshot snapshot) {
-                List<User> users = new ArrayList<>();
-                for (DataSnapshot userSnapshot : snapshot.getChildren()) {
-                    User user = userSnapshot.getValue(User.class);
-                    users.add(user);
-                }
-                future.complete(users);
+    public Map<String, User> getUsersByIds(Collection<String> ids) {
+        Map<String, User> users = new LinkedHashMap<>();
+        Map<String, CompletableFuture<User>> lookups = new LinkedHashMap<>();
+        for (String id : new LinkedHashSet<>(ids)) {
+            if (id == null || id.isEmpty()) {
+                continue;
             }
+            User cached = userCache.get(id);
+            if (cached != null) {
+                users.put(id, cached);
+            } else {
+                lookups.put(id, storage.get(userPath(id), User.class));
+            }
+        }
 
-            @Override
-            public void onCancelled(DatabaseError error) {
-                future.completeExceptionally(error.toException());
+        try {
+            threadingMetrics.await(CompletableFuture.allOf(lookups.values().toArray(new CompletableFuture[0])), USERS);
+            for (Map.Entry<String, CompletableFuture<User>> lookup : lookups.entrySet()) {
+                User user = lookup.getValue().get();
+                if (user != null) {
+                    userCache.put(lookup.getKey(), user);
+                    users.put(lookup.getKey(), user);
+                }
             }
-        });
+        } catch (InterruptedException | ExecutionException e) {
+            throw new RuntimeException("Error retrieving users", e);
+        }
+        return users;
+    }
 
+    @Override
+    public List<User> getAllUsers() {
         try {
-            return future.get();
+            return new ArrayList<>(threadingMetrics.await(storage.getChildren(USERS, User.class), USERS).values());
         } catch (InterruptedException | ExecutionException e) {
             throw new RuntimeException("Error retrieving users", e);
         }
@@ -133,97 +162,124 @@ public class UserServiceImpl implements UserService {
     public User updateUser(User user) {
         String timestamp = Instant.now().toString();
         user.setUpdatedAt(timestamp);
-    
-        // Update user details in Firebase Realtime Database
-        databaseReference.child(user.getId()).setValueAsync(user);
-    
+
+        // Update user details in the database
+        storage.set(userPath(user.getId()), user);
+        userCache.invalidate(user.getId());
+        userCounters.put(user.getId(), user);
+        if (user.getProfileThumbnail() == null) {
+            scheduleProfileThumbnail(user.getId(), user.getProfilePicture());
+        }
+
         // If a new password is provided, update it in Firebase Authentication
         if (user.getPassword() != null && !user.getPassword().isEmpty()) {
             try {
-                UserRecord userRecord = firebaseAuth.getUser(user.getId());
+                firebaseAuth().getUser(user.getId()); // Fails if the account does not exist
                 UserRecord.UpdateRequest updateRequest = new UserRecord.UpdateRequest(user.getId())
                         .setPassword(user.getPassword());
-    
-                firebaseAuth.updateUser(updateRequest);
-                System.out.println("Password updated successfully.");
+
+                firebaseAuth().updateUser(updateRequest);
+                log.info("Password updated successfully.");
             } catch (FirebaseAuthException e) {
                 throw new RuntimeException("Error updating user password in Firebase Authentication", e);
             }
         }
-    
+
         return user;
     }
-    
+
 
     @Override
     public void deleteUser(String id) {
         // Delete user from Firebase Authentication
         try {
-            firebaseAuth.deleteUser(id); // This deletes the user from Firebase Authentication
+            firebaseAuth().deleteUser(id); // This deletes the user from Firebase Authentication
         } catch (FirebaseAuthException e) {
             throw new RuntimeException("Error deleting user from Firebase Authentication", e);
         }
 
-        // Delete user from Firebase Realtime Database
-        ApiFuture<Void> future = databaseReference.child(id).removeValueAsync();
-
-        ApiFutures.addCallback(future, new ApiFutureCallback<Void>() {
-            @Override
-            public void onSuccess(Void result) {
-                System.out.println("User data removed from Realtime Database successfully.");
+        // Delete user from the database
+        userCache.invalidate(id);
+        userCounters.remove(id);
+        storage.remove(userPath(id)).whenComplete((result, error) -> {
+            if (error != null) {
+                log.error("Error removing user data from the database", error);
+            } else {
+                log.info("User data removed from the database successfully.");
             }
-
-            @Override
-            public void onFailure(Throwable t) {
-                System.err.println("Error removing user data from Realtime Database: " + t.getMessage());
-            }
-        }, MoreExecutors.directExecutor());
+        });
     }
 
-    
-    
+
+
     @Override
     public int getUserCount() {
-        CompletableFuture<Integer> future = new CompletableFuture<>();
-    
-        databaseReference.addListenerForSingleValueEvent(new ValueEventListener() {
-            @Override
-            public void onDataChange(DataSnapshot snapshot) {
-                int userCount = (int) snapshot.getChildrenCount();
-                future.complete(userCount);
-            }
-    
-            @Override
-            public void onCancelled(DatabaseError error) {
-                future.completeExceptionally(error.toException());
-            }
-        });
-    
+        if (userCounters.isLoaded()) {
+            return userCounters.getTotal();
+        }
         try {
-            return future.get();
+            return threadingMetrics.await(storage.getChildren(USERS, User.class), USERS).size();
         } catch (InterruptedException | ExecutionException e) {
             throw new RuntimeException("Error retrieving user count", e);
         }
     }
 
     @Override
-    public void updateProfilePicture(String id, String profilePictureUrl) {
-        // Reference to the specific user node in the database
-        DatabaseReference userRef = databaseReference.child(id).child("profilePicture");
-
-        // Set the profile picture URL asynchronously
-        ApiFuture<Void> future = userRef.setValueAsync(profilePictureUrl);
-
-        ApiFutures.addCallback(future, new ApiFutureCallback<Void>() {
-            @Override
-            public void onSuccess(Void result) {
-                System.out.println("Profile picture updated successfully.");
+    public UserCounts getUserCountsBreakdown() {
+        if (!userCounters.isLoaded()) {
+            // Startup reconcile has not finished; count from one full read
+            UserCounters.Reload reload = userCounters.beginReload();
+            try {
+                userCounters.reset(reload, threadingMetrics.await(storage.getChildren(USERS, User.class), USERS));
+            } catch (InterruptedException | ExecutionException e) {
+                userCounters.abandon(reload);
+                throw new RuntimeException("Error retrieving user counts", e);
             }
+        }
+        return userCounters.getCounts();
+    }
 
-            @Override
-            public void onFailure(Throwable t) {
-                System.err.println("Error updating profile picture: " + t.getMessage());
+    @Override
+    public void updateProfilePicture(String id, String profilePictureUrl) {
+        // Set the profile picture URL on the specific user node; the old thumbnail no longer applies
+        userCache.invalidate(id);
+        Map<String, Object> changes = new LinkedHashMap<>();
+        changes.put("profilePicture", profilePictureUrl);
+        changes.put("profileThumbnail", null);
+        storage.update(userPath(id), changes).whenComplete((result, error) -> {
+            if (error != null) {
+                log.error("Error updating profile picture", error);
+            } else {
+                log.info("Profile picture updated successfully.");
+                scheduleProfileThumbnail(id, profilePictureUrl);
             }
-        }, MoreExecutors.directExecutor());
+        });
+    }
+
+    // Generated in the background and only saved, in one transaction on the user, if the picture
+    // has not been replaced meanwhile; a deleted user is never recreated. A failure leaves the
+    // thumbnail unset, so the next save of the user tries again
+    private void scheduleProfileThumbnail(String id, String pictureUrl) {
+        if (pictureUrl == null || pictureUrl.isEmpty()) {
+            return;
+        }
+        thumbnailService.createThumbnail(pictureUrl)
+                .thenCompose(thumbnail -> storage.transaction(userPath(id), User.class, current -> {
+                    if (!pictureUrl.equals(current.getProfilePicture())) {
+                        return null;
+                    }
+                    current.setProfileThumbnail(thumbnail);
+                    return current;
+                }))
+                .whenComplete((result, error) -> {
+                    if (error != null) {
+                        log.error("Error creating profile thumbnail", error);
+                    }
+                    userCache.invalidate(id);
+                });
+    }
+
+    private static String userPath(String id) {
+        return USERS + "/" + id;
     }
 }
@@ -0,0 +1,76 @@
+package findnest.config;
+
+import findnest.service.TokenVerifier;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.http.HttpHeaders;
+import org.springframework.mock.web.MockFilterChain;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+
+import java.util.Optional;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+class FirebaseAuthFilterTest {
+
+    // Without a key set or a Firebase app every token fails verification
+    private final TokenVerifier verifier = new TokenVerifier(Optional.empty(), "", 100);
+
+    @Test
+    void rejectsABadTokenWhenEnforced() throws Exception {
+        MockHttpServletResponse response = new MockHttpServletResponse();
+        MockFilterChain chain = new MockFilterChain();
+
+        new FirebaseAuthFilter(verifier, true).doFilter(request("Bearer not-a-token"), response, chain);
+
+        assertEquals(401, response.getStatus());
+        assertNull(chain.getRequest());
+    }
+
+    @Test
+    void rejectsAMissingTokenWhenEnforced() throws Exception {
+        MockHttpServletResponse response = new MockHttpServletResponse();
+
+        new FirebaseAuthFilter(verifier, true).doFilter(request(null), response, new MockFilterChain());
+
+        assertEquals(401, response.getStatus());
+    }
+
+    @Test
+    void letsRequestsThroughUnauthenticatedWhenNotEnforced() throws Exception {
+        MockHttpServletRequest request = request("Bearer not-a-token");
+        MockFilterChain chain = new MockFilterChain();
+
+        new FirebaseAuthFilter(verifier, false).doFilter(request, new MockHttpServletResponse(), chain);
+
+        assertNotNull(chain.getRequest());
+        assertNull(request.getAttribute(FirebaseAuthFilter.TOKEN_ATTRIBUTE));
+    }
+
+    @Test
+    void skipsPreflightsAndNonApiPaths() throws Exception {
+        MockHttpServletRequest preflight = request(null);
+        preflight.setMethod("OPTIONS");
+        MockHttpServletRequest image = new MockHttpServletRequest("GET", "/images/a.jpg");
+        FirebaseAuthFilter filter = new FirebaseAuthFilter(verifier, true);
+
+        for (MockHttpServletRequest request : new MockHttpServletRequest[] { preflight, image }) {
+            MockFilterChain chain = new MockFilterChain();
+            MockHttpServletResponse response = new MockHttpServletResponse();
+            filter.doFilter(request, response, chain);
+            assertEquals(200, response.getStatus());
+            assertNotNull(chain.getRequest());
+        }
+    }
+
+    private static MockHttpServletRequest request(String authorization) {
+        MockHttpServletRequest request = new MockHttpServletRequest("GET", "/api/items/count");
+        if (authorization != null) {
+            request.addHeader(HttpHeaders.AUTHORIZATION, authorization);
+        }
+        return request;
+    }
+}
@@ -0,0 +1,103 @@
+package findnest.controller;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import findnest.model.ClaimResult;
+import findnest.model.Items;
+import findnest.service.HistoryArchive;
+import findnest.service.ImageStore;
+import findnest.service.ItemAnalytics;
+import findnest.service.ItemCache;
+import findnest.service.ItemCounters;
+import findnest.service.ItemEventBroadcaster;
+import findnest.service.ItemIndex;
+import findnest.service.ItemSearchIndex;
+import findnest.service.ItemServiceImpl;
+import findnest.service.LocalImageStore;
+import findnest.service.LocalStorageBackend;
+import findnest.service.ThreadingMetrics;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+class ItemControllerTest {
+
+    @TempDir
+    Path directory;
+
+    private LocalStorageBackend local;
+    private ExecutorService executor;
+    private ItemServiceImpl itemService;
+    private ItemController controller;
+
+    @BeforeEach
+    void setUp() throws IOException {
+        local = new LocalStorageBackend(directory.resolve("db").toString(), 1000);
+        executor = Executors.newFixedThreadPool(4);
+        ItemAnalytics itemAnalytics = new ItemAnalytics();
+        ItemCounters itemCounters = new ItemCounters();
+        ItemIndex itemIndex = new ItemIndex();
+        ItemSearchIndex itemSearchIndex = new ItemSearchIndex();
+        ItemCache itemCache = new ItemCache(List.of(itemAnalytics, itemCounters, itemIndex, itemSearchIndex));
+        ImageStore imageStore = new LocalImageStore(directory.resolve("images").toString(), "http://localhost:8080/images",
+                directory.resolve("objects").toString());
+        HistoryArchive archive = new HistoryArchive(imageStore, 0, 4, 60_000, executor);
+        itemService = new ItemServiceImpl(local, itemCache, itemCounters, itemIndex, itemSearchIndex,
+                archive, itemAnalytics, executor, new ThreadingMetrics(false, new SimpleMeterRegistry()), 10_000);
+        controller = new ItemController(itemService, new ObjectMapper(),
+                new ItemEventBroadcaster(itemCounters, executor, 16, 0));
+    }
+
+    @AfterEach
+    void tearDown() throws IOException {
+        executor.shutdown();
+        local.close();
+    }
+
+    @Test
+    void answersNotModifiedUntilTheItemsChange() {
+        ResponseEntity<Object> first = controller.countAllItems(null).join();
+        String etag = first.getHeaders().getETag();
+        assertEquals(HttpStatus.OK, first.getStatusCode());
+        assertNotNull(etag);
+
+        ResponseEntity<Object> unchanged = controller.countAllItems("W/" + etag).join();
+        assertEquals(HttpStatus.NOT_MODIFIED, unchanged.getStatusCode());
+        assertNull(unchanged.getBody());
+
+        itemService.saveItemAsync(Items.builder().item("Wallet").build()).join();
+
+        ResponseEntity<Object> changed = controller.countAllItems(etag).join();
+        assertEquals(HttpStatus.OK, changed.getStatusCode());
+        assertNotEquals(etag, changed.getHeaders().getETag());
+        assertEquals(1L, ((Items) changed.getBody()).getTotalCount());
+    }
+
+    @Test
+    void aSecondClaimIsAConflict() {
+        Items saved = itemService.saveItemAsync(Items.builder().item("Wallet").build()).join();
+
+        ResponseEntity<ClaimResult> won = controller.claimItem(saved.getId(), Map.of("claimantName", "Ana")).join();
+        ResponseEntity<ClaimResult> lost = controller.claimItem(saved.getId(), Map.of("claimantName", "Ben")).join();
+
+        assertEquals(HttpStatus.OK, won.getStatusCode());
+        assertEquals(HttpStatus.CONFLICT, lost.getStatusCode());
+        assertEquals("Ana", lost.getBody().getItem().getClaimantName());
+    }
+}
@@ -0,0 +1,227 @@
+package findnest.service;
+
+import findnest.model.ItemFilter;
+import findnest.model.ItemPage;
+import findnest.model.Items;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.time.Instant;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class HistoryArchiveTest {
+
+    private static final Instant NOW = Instant.parse("2025-06-15T12:00:00Z");
+
+    @TempDir
+    Path directory;
+
+    private ImageStore store;
+    private ExecutorService executor;
+
+    @BeforeEach
+    void setUp() throws IOException {
+        store = new LocalImageStore(directory.resolve("images").toString(), "http://localhost:8080/images",
+                directory.resolve("objects").toString());
+        executor = Executors.newFixedThreadPool(2);
+    }
+
+    @AfterEach
+    void tearDown() {
+        executor.shutdown();
+    }
+
+    @Test
+    void agesRecordsByTheirLatestKnownDate() {
+        HistoryArchive archive = open(90, 60_000);
+
+        assertFalse(archive.isDue(Items.builder().id("h1").build(), NOW));
+        assertTrue(archive.isDue(Items.builder().id("h2").updatedAt("2025-01-02T00:00:00Z").build(), NOW));
+        assertTrue(archive.isDue(Items.builder().id("h3").createdAt("2025-01-02").build(), NOW));
+        assertFalse(archive.isDue(Items.builder().id("h4").archivedAt("2025-06-01T00:00:00Z")
+                .updatedAt("2025-01-02T00:00:00Z").build(), NOW));
+    }
+
+    @Test
+    void pagesAcrossSegmentsInKeyOrder() throws IOException {
+        HistoryArchive archive = open(90, 60_000);
+        Map<String, Items> records = new LinkedHashMap<>();
+        // Keys interleave between the two monthly segments
+        records.put("h1", record("h1", "2025-01-10T00:00:00Z"));
+        records.put("h2", record("h2", "2025-02-10T00:00:00Z"));
+        records.put("h3", record("h3", "2025-01-11T00:00:00Z"));
+        records.put("h4", record("h4", "2025-02-11T00:00:00Z"));
+        records.put("h5", record("h5", "2025-01-12T00:00:00Z"));
+        archive.append(records);
+
+        assertEquals(2, archive.getSegmentCount());
+        assertEquals(List.of("h1", "h2", "h3"), new ArrayList<>(archive.page(null, 3).join().keySet()));
+        assertEquals(List.of("h4", "h5"), new ArrayList<>(archive.page("h3", 3).join().keySet()));
+        assertTrue(archive.page("h5", 3).join().isEmpty());
+        assertEquals("h4", archive.find("h4").join().getId());
+        assertNull(archive.find("h6").join());
+    }
+
+    @Test
+    void otherInstancesSeeCompactedRecords() throws IOException {
+        HistoryArchive writer = open(90, 60_000);
+        HistoryArchive reader = open(90, 0);
+        writer.append(Map.of("h1", record("h1", "2025-01-10T00:00:00Z")));
+        assertEquals("h1", reader.find("h1").join().getId());
+
+        // The reader has the segment cached; a later append to it must still be seen
+        writer.append(Map.of("h2", record("h2", "2025-01-20T00:00:00Z")));
+        NavigableMap<String, Items> all = reader.readAll().join();
+        assertEquals(List.of("h1", "h2"), new ArrayList<>(all.keySet()));
+        assertEquals("h2", reader.find("h2").join().getId());
+    }
+
+    @Test
+    void pagesAcrossHotAndColdTiersAfterCompaction() throws IOException {
+        try (LocalStorageBackend storage = new LocalStorageBackend(directory.resolve("db").toString(), 1000)) {
+            String recent = Instant.now().minus(1, ChronoUnit.DAYS).toString();
+            Map<String, Object> history = new LinkedHashMap<>();
+            history.put("ItemsHistory/h1", record("h1", "2020-01-10T00:00:00Z"));
+            history.put("ItemsHistory/h2", record("h2", recent));
+            history.put("ItemsHistory/h3", record("h3", "2020-02-10T00:00:00Z"));
+            history.put("ItemsHistory/h4", Items.builder().id("h4").item("Undated").build());
+            history.put("ItemsHistory/h5", record("h5", "2020-01-12T00:00:00Z"));
+            storage.update("", history).join();
+
+            ItemAnalytics itemAnalytics = new ItemAnalytics();
+            ItemCache itemCache = new ItemCache(List.of(itemAnalytics));
+            HistoryArchive archive = open(90, 60_000);
+            ItemServiceImpl itemService = new ItemServiceImpl(storage, itemCache, new ItemCounters(), new ItemIndex(),
+                    new ItemSearchIndex(), archive, itemAnalytics, executor,
+                    new ThreadingMetrics(false, new SimpleMeterRegistry()), 10_000);
+
+            itemService.compactHistoryAsync().join();
+
+            assertEquals(3, archive.getRecordCount());
+            assertEquals(List.of("h2", "h4"), new ArrayList<>(storage.getChildren("ItemsHistory", Items.class).join().keySet()));
+
+            List<String> walked = new ArrayList<>();
+            String cursor = null;
+            do {
+                ItemPage page = itemService.getItemsFromHistoryPageAsync(cursor, 2).join();
+                page.getItems().forEach(item -> walked.add(item.getId()));
+                cursor = page.getNextCursor();
+            } while (cursor != null);
+            assertEquals(List.of("h1", "h2", "h3", "h4", "h5"), walked);
+        }
+    }
+
+    @Test
+    void eachBatchAddsASegmentWithoutRewritingEarlierOnes() throws IOException {
+        HistoryArchive archive = open(90, 60_000);
+        archive.append(Map.of("h1", record("h1", "2025-01-10T00:00:00Z")));
+        byte[] first = store.readObject("history/ItemsHistory-2025-01-00001.ndjson.gz");
+
+        archive.append(Map.of("h2", record("h2", "2025-01-20T00:00:00Z")));
+
+        assertEquals(2, archive.getSegmentCount());
+        assertArrayEquals(first, store.readObject("history/ItemsHistory-2025-01-00001.ndjson.gz"));
+        assertEquals(List.of("h1", "h2"), new ArrayList<>(archive.readAll().join().keySet()));
+        assertThrows(IllegalArgumentException.class,
+                () -> archive.append(Map.of("h3", Items.builder().id("h3").item("Undated").build())));
+    }
+
+    @Test
+    void historyIsServedFromTheHotTierWhenTheArchiveFails() throws IOException {
+        try (LocalStorageBackend storage = new LocalStorageBackend(directory.resolve("db").toString(), 1000)) {
+            storage.set("ItemsHistory/h2", record("h2", Instant.now().toString())).join();
+            FailingStore failing = new FailingStore(store);
+            failing.failing = true;
+            ItemServiceImpl itemService = service(storage, new HistoryArchive(failing, 90, 4, 60_000, executor));
+
+            assertEquals(List.of("h2"), itemService.getItemsFromHistoryPageAsync(null, 10).join().getItems().stream()
+                    .map(Items::getId).toList());
+            assertEquals(1, itemService.getAllItemsFromHistoryAsync().join().size());
+            // An export must be complete, so it fails rather than degrading
+            assertThrows(IOException.class, () -> itemService.exportItems(true, new ItemFilter(), page -> { }));
+        }
+    }
+
+    @Test
+    void archiveIsNotReadWhileCompactionIsOff() throws IOException {
+        try (LocalStorageBackend storage = new LocalStorageBackend(directory.resolve("db").toString(), 1000)) {
+            storage.set("ItemsHistory/h2", record("h2", Instant.now().toString())).join();
+            FailingStore counting = new FailingStore(store);
+            ItemServiceImpl itemService = service(storage, new HistoryArchive(counting, 0, 4, 60_000, executor));
+
+            assertEquals(1, itemService.getItemsFromHistoryPageAsync(null, 10).join().getItems().size());
+            assertEquals(1, itemService.getAllItemsFromHistoryAsync().join().size());
+            assertEquals(0, counting.reads);
+        }
+    }
+
+    private ItemServiceImpl service(StorageBackend storage, HistoryArchive archive) {
+        ItemAnalytics itemAnalytics = new ItemAnalytics();
+        return new ItemServiceImpl(storage, new ItemCache(List.of(itemAnalytics)), new ItemCounters(), new ItemIndex(),
+                new ItemSearchIndex(), archive, itemAnalytics, executor,
+                new ThreadingMetrics(false, new SimpleMeterRegistry()), 10_000);
+    }
+
+    private HistoryArchive open(long hotRetentionDays, long indexRefreshMs) {
+        return new HistoryArchive(store, hotRetentionDays, 4, indexRefreshMs, executor);
+    }
+
+    private static Items record(String id, String archivedAt) {
+        return Items.builder().id(id).item("Item " + id).status("Claimed").archivedAt(archivedAt).build();
+    }
+
+    // Counts server-only reads that succeed, and fails them all while failing is set
+    private static final class FailingStore implements ImageStore {
+        private final ImageStore delegate;
+        volatile boolean failing;
+        volatile int reads;
+
+        FailingStore(ImageStore delegate) {
+            this.delegate = delegate;
+        }
+
+        @Override
+        public byte[] read(String url) throws IOException {
+            return delegate.read(url);
+        }
+
+        @Override
+        public String write(String name, byte[] data, String contentType) throws IOException {
+            return delegate.write(name, data, contentType);
+        }
+
+        @Override
+        public byte[] readObject(String name) throws IOException {
+            if (failing) {
+                throw new IOException("Bucket unavailable");
+            }
+            reads++;
+            return delegate.readObject(name);
+        }
+
+        @Override
+        public void writeObject(String name, byte[] data, String contentType) throws IOException {
+            delegate.writeObject(name, data, contentType);
+        }
+    }
+}
@@ -0,0 +1,72 @@
+package findnest.service;
+
+import findnest.model.ItemStats;
+import findnest.model.Items;
+
+import org.junit.jupiter.api.Test;
+
+import java.time.Instant;
+import java.time.LocalDate;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+class ItemAnalyticsTest {
+
+    private final ItemAnalytics analytics = new ItemAnalytics();
+
+    @Test
+    void countsCurrentItemsAndHistoryTogether() {
+        analytics.onItemChanged(null, item("i1", "Bags", "Available"));
+        analytics.onItemChanged(null, item("i2", "Phones", "Available"));
+        analytics.onItemChanged(item("i2", "Phones", "Available"), item("i2", "Phones", "Claimed"));
+        analytics.historyAdded(record("h1", "Bags", "2020-01-01T00:00:00Z"));
+
+        ItemStats stats = analytics.getStats(4, 10);
+
+        assertEquals(Map.of("Bags", 2L, "Phones", 1L), stats.getCategoryHotspots());
+        assertEquals(2L, stats.getFoundPerWeek().values().stream().mapToLong(Long::longValue).sum());
+        assertEquals(1L, stats.getClaimedPerWeek().values().stream().mapToLong(Long::longValue).sum());
+    }
+
+    @Test
+    void rebuildKeepsRecordsAddedWhileTheWalkRan() {
+        analytics.historyAdded(record("h1", "Bags", "2020-01-01T00:00:00Z"));
+
+        ItemAnalytics.Rollup rebuilt = analytics.beginHistoryRebuild();
+        analytics.historyRebuilt(rebuilt, List.of(record("h1", "Bags", "2020-01-01T00:00:00Z")));
+        // Added behind the walk's position, so the walk never reads it
+        analytics.historyAdded(record("h0", "Bags", Instant.now().toString()));
+        // Added ahead of it, and read by the walk both before and after its add is reported
+        Items h2 = record("h2", "Bags", Instant.now().toString());
+        analytics.historyAdded(h2);
+        Items h3 = record("h3", "Bags", Instant.now().toString());
+        analytics.historyRebuilt(rebuilt, List.of(h2, h3));
+        analytics.historyAdded(h3);
+        analytics.historyReset(rebuilt);
+
+        assertEquals(Map.of("Bags", 4L), analytics.getStats(4, 10).getCategoryHotspots());
+    }
+
+    @Test
+    void abandonedRebuildKeepsTheCurrentRollups() {
+        analytics.historyAdded(record("h1", "Bags", "2020-01-01T00:00:00Z"));
+
+        analytics.beginHistoryRebuild();
+        analytics.historyAdded(record("h2", "Bags", Instant.now().toString()));
+        analytics.abandonHistoryRebuild();
+
+        assertEquals(Map.of("Bags", 2L), analytics.getStats(4, 10).getCategoryHotspots());
+    }
+
+    private static Items item(String id, String category, String status) {
+        String today = LocalDate.now().toString();
+        return Items.builder().id(id).category(category).status(status).dateFound(today)
+                .claimedDate("Claimed".equals(status) ? today : null).build();
+    }
+
+    private static Items record(String id, String category, String archivedAt) {
+        return Items.builder().id(id).category(category).status("Claimed").archivedAt(archivedAt).build();
+    }
+}
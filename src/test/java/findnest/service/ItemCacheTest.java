@@ -0,0 +1,116 @@
+package findnest.service;
+
+import findnest.model.Items;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class ItemCacheTest {
+
+    private final RecordingListener listener = new RecordingListener();
+    private final ItemCache cache = new ItemCache(List.of(listener));
+
+    @Test
+    void pagesInKeyOrderAfterTheCursor() {
+        cache.put("b", item("b", "Phone"));
+        cache.put("a", item("a", "Wallet"));
+        cache.put("c", item("c", "Keys"));
+
+        assertEquals(List.of("a", "b"), new ArrayList<>(cache.getPage(null, 2).keySet()));
+        assertEquals(List.of("c"), new ArrayList<>(cache.getPage("b", 2).keySet()));
+    }
+
+    @Test
+    void echoOfAWriteThroughIsReportedOnce() {
+        cache.put("a", item("a", "Wallet"));
+        long version = cache.getVersion();
+        cache.put("a", item("a", "Wallet"));
+
+        assertEquals(version, cache.getVersion());
+        assertEquals(1, listener.changes);
+    }
+
+    @Test
+    void reloadKeepsChangesMadeWhileTheSnapshotWasRead() {
+        cache.put("a", item("a", "Wallet"));
+        cache.put("b", item("b", "Phone"));
+
+        ItemCache.Reload reload = cache.beginReload();
+        // Snapshot as read from the database before the changes below landed
+        Map<String, Items> snapshot = Map.of("a", item("a", "Wallet"), "b", item("b", "Phone"));
+        cache.put("a", item("a", "Wallet (claimed)"));
+        cache.remove("b");
+        cache.put("c", item("c", "Keys"));
+        cache.reset(reload, snapshot);
+
+        assertEquals("Wallet (claimed)", cache.get("a").getItem());
+        assertNull(cache.get("b"));
+        assertEquals("Keys", cache.get("c").getItem());
+    }
+
+    @Test
+    void reloadMatchingTheCacheKeepsTheVersion() {
+        cache.put("a", item("a", "Wallet"));
+        long version = cache.getVersion();
+
+        cache.reset(Map.of("a", item("a", "Wallet")));
+        assertEquals(version, cache.getVersion());
+        assertEquals(0, listener.resets);
+        assertEquals(1, listener.reconciles);
+
+        cache.reset(Map.of("a", item("a", "Wallet"), "b", item("b", "Phone")));
+        assertTrue(cache.getVersion() > version);
+        assertEquals(1, listener.resets);
+    }
+
+    @Test
+    void invalidateEmptiesTheCacheUntilTheListenerLoadsAgain() {
+        cache.put("a", item("a", "Wallet"));
+        cache.markLoaded();
+
+        cache.invalidate();
+        assertFalse(cache.isLoaded());
+        assertEquals(0, cache.size());
+        assertEquals(1, listener.resets);
+
+        // A reload alone does not mark the cache loaded; only the listener does
+        cache.reset(Map.of("a", item("a", "Wallet")));
+        assertFalse(cache.isLoaded());
+        cache.markLoaded();
+        assertTrue(cache.isLoaded());
+    }
+
+    private static Items item(String id, String name) {
+        return Items.builder().id(id).item(name).status("Available").build();
+    }
+
+    private static final class RecordingListener implements ItemChangeListener {
+        int changes;
+        int resets;
+        int reconciles;
+
+        @Override
+        public void onItemChanged(Items previous, Items current) {
+            changes++;
+        }
+
+        @Override
+        public void onItemsReset(Collection<Items> items) {
+            resets++;
+        }
+
+        @Override
+        public void onItemsReconciled(Collection<Items> items) {
+            reconciles++;
+        }
+    }
+}
@@ -0,0 +1,51 @@
+package findnest.service;
+
+import findnest.model.ItemCounts;
+import findnest.model.Items;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+class ItemCountersTest {
+
+    private final ItemCounters counters = new ItemCounters();
+
+    @Test
+    void followsStatusChangesAndRemovals() {
+        Items wallet = item("a", "Available", "Accessories", "Security");
+        counters.onItemChanged(null, wallet);
+        counters.onItemChanged(null, item("b", "Available", "Electronics", "Library"));
+        counters.onItemChanged(wallet, item("a", "Claimed", "Accessories", "Security"));
+        counters.onItemChanged(item("b", "Available", "Electronics", "Library"), null);
+
+        Items status = counters.getStatusCounts();
+        assertEquals(1L, status.getTotalCount());
+        assertEquals(0L, status.getAvailableCount());
+        assertEquals(1L, status.getClaimedCount());
+        ItemCounts counts = counters.getCounts();
+        assertEquals(Map.of("Accessories", 1L), counts.getCategoryCounts());
+        assertEquals(Map.of("Security", 1L), counts.getDepartmentCounts());
+    }
+
+    @Test
+    void resetRecountsFromScratch() {
+        counters.onItemChanged(null, item("a", "Available", "Accessories", "Security"));
+
+        counters.onItemsReset(List.of(item("b", "Claimed", "Electronics", "Library"),
+                item("c", "Available", "Electronics", "Library")));
+
+        ItemCounts counts = counters.getCounts();
+        assertEquals(2L, counts.getTotalCount());
+        assertEquals(1L, counts.getAvailableCount());
+        assertEquals(1L, counts.getClaimedCount());
+        assertEquals(Map.of("Electronics", 2L), counts.getCategoryCounts());
+    }
+
+    private static Items item(String id, String status, String category, String department) {
+        return Items.builder().id(id).status(status).category(category).department(department).build();
+    }
+}
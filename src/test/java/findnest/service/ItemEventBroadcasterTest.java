@@ -0,0 +1,87 @@
+package findnest.service;
+
+import findnest.model.Items;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayDeque;
+import java.util.List;
+import java.util.Queue;
+import java.util.concurrent.AbstractExecutorService;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+class ItemEventBroadcasterTest {
+
+    private final HeldExecutor executor = new HeldExecutor();
+    private final ItemEventBroadcaster broadcaster = new ItemEventBroadcaster(new ItemCounters(), executor, 4, 0);
+
+    @Test
+    void aClientThatFallsBehindIsToldToResync() {
+        broadcaster.subscribe();
+        broadcaster.subscribe();
+
+        // Nothing is sent while the executor holds the drains, so each client's queue fills up
+        for (int i = 0; i < 5; i++) {
+            broadcaster.onItemChanged(null, Items.builder().id("item-" + i).build());
+        }
+
+        assertEquals(2, broadcaster.getResyncCount());
+        // One drain per client, however many events were queued
+        assertEquals(2, executor.tasks.size());
+        executor.runAll();
+        assertEquals(2, broadcaster.getClientCount());
+    }
+
+    @Test
+    void aReconcileThatFoundNothingNewSendsNothing() {
+        broadcaster.subscribe();
+        executor.runAll();
+
+        broadcaster.onItemsReconciled(List.of(Items.builder().id("a").build()));
+
+        assertEquals(0, executor.tasks.size());
+    }
+
+    // Runs tasks only when asked, standing in for a slow connection
+    private static final class HeldExecutor extends AbstractExecutorService {
+        final Queue<Runnable> tasks = new ArrayDeque<>();
+
+        @Override
+        public void execute(Runnable command) {
+            tasks.add(command);
+        }
+
+        void runAll() {
+            Runnable task;
+            while ((task = tasks.poll()) != null) {
+                task.run();
+            }
+        }
+
+        @Override
+        public void shutdown() {
+        }
+
+        @Override
+        public List<Runnable> shutdownNow() {
+            return List.of();
+        }
+
+        @Override
+        public boolean isShutdown() {
+            return false;
+        }
+
+        @Override
+        public boolean isTerminated() {
+            return false;
+        }
+
+        @Override
+        public boolean awaitTermination(long timeout, TimeUnit unit) {
+            return true;
+        }
+    }
+}
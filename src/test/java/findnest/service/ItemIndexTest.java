@@ -0,0 +1,56 @@
+package findnest.service;
+
+import findnest.model.ItemFilter;
+import findnest.model.Items;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+class ItemIndexTest {
+
+    private final ItemIndex index = new ItemIndex();
+
+    @Test
+    void intersectsEveryIndexedFieldIgnoringCase() {
+        index.onItemsReset(List.of(
+                item("c", "Electronics", "Available", "Library"),
+                item("a", "Electronics", "Available", "Library"),
+                item("b", "Electronics", "Claimed", "Library"),
+                item("d", "Accessories", "Available", "Library")));
+
+        assertEquals(Set.of("a", "c"), index.find(filter("electronics", "AVAILABLE", null)));
+        assertEquals(List.of("a", "c"), List.copyOf(index.find(filter("Electronics", "Available", "Library"))));
+        assertEquals(Set.of(), index.find(filter("Books", null, null)));
+        assertNull(index.find(new ItemFilter()));
+    }
+
+    @Test
+    void movesAnItemBetweenPostingsWhenItChanges() {
+        Items phone = item("a", "Electronics", "Available", "Library");
+        index.onItemChanged(null, phone);
+        index.onItemChanged(phone, item("a", "Electronics", "Claimed", "Library"));
+
+        assertEquals(Set.of(), index.find(filter(null, "Available", null)));
+        assertEquals(Set.of("a"), index.find(filter(null, "Claimed", null)));
+
+        index.onItemChanged(item("a", "Electronics", "Claimed", "Library"), null);
+        assertEquals(Set.of(), index.find(filter("Electronics", null, null)));
+    }
+
+    private static ItemFilter filter(String category, String status, String location) {
+        ItemFilter filter = new ItemFilter();
+        filter.setCategory(category);
+        filter.setStatus(status);
+        filter.setLocation(location);
+        return filter;
+    }
+
+    private static Items item(String id, String category, String status, String location) {
+        return Items.builder().id(id).category(category).status(status).location(location).build();
+    }
+}
@@ -0,0 +1,53 @@
+package findnest.service;
+
+import findnest.model.Items;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class ItemSearchIndexTest {
+
+    private final ItemSearchIndex index = new ItemSearchIndex();
+
+    @Test
+    void ranksItemsMatchingMoreQueryTokensFirst() {
+        index.onItemsReset(List.of(
+                item("a", "Black wallet", "Leather, found near the stairs", "Library"),
+                item("b", "Blue umbrella", "Left by the black bench", "Cafeteria"),
+                item("c", "Black phone", "Cracked screen", "Library")));
+
+        assertEquals(List.of("c", "a", "b"), index.search("black library phone", 10));
+        assertEquals(List.of("c"), index.search("black library phone", 1));
+    }
+
+    @Test
+    void matchesPrefixesButPrefersWholeTerms() {
+        index.onItemsReset(List.of(
+                item("a", "Wallet", null, "Gym"),
+                item("b", "Wall clock", null, "Gym")));
+
+        assertEquals(List.of("b", "a"), index.search("wall", 10));
+        assertTrue(index.search("", 10).isEmpty());
+    }
+
+    @Test
+    void forgetsTheOldTextOfAChangedItem() {
+        Items keys = item("a", "Keys", null, "Gym");
+        index.onItemChanged(null, keys);
+        index.onItemChanged(keys, item("a", "Keys", null, "Library"));
+
+        assertTrue(index.search("gym", 10).isEmpty());
+        assertEquals(List.of("a"), index.search("library", 10));
+
+        index.onItemChanged(item("a", "Keys", null, "Library"), null);
+        assertTrue(index.search("keys", 10).isEmpty());
+    }
+
+    private static Items item(String id, String name, String description, String location) {
+        return Items.builder().id(id).item(name).description(description).location(location).build();
+    }
+}
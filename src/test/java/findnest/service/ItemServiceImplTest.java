@@ -0,0 +1,278 @@
+package findnest.service;
+
+import findnest.model.ClaimResult;
+import findnest.model.ItemFilter;
+import findnest.model.ItemPage;
+import findnest.model.Items;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.function.UnaryOperator;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertInstanceOf;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class ItemServiceImplTest {
+
+    @TempDir
+    Path directory;
+
+    private LocalStorageBackend local;
+    private RecordingStorage storage;
+    private ExecutorService executor;
+    private ItemCache itemCache;
+    private ItemServiceImpl itemService;
+
+    @BeforeEach
+    void setUp() throws IOException {
+        local = new LocalStorageBackend(directory.resolve("db").toString(), 1000);
+        storage = new RecordingStorage(local);
+        executor = Executors.newFixedThreadPool(4);
+        ItemAnalytics itemAnalytics = new ItemAnalytics();
+        ItemCounters itemCounters = new ItemCounters();
+        ItemIndex itemIndex = new ItemIndex();
+        ItemSearchIndex itemSearchIndex = new ItemSearchIndex();
+        itemCache = new ItemCache(List.of(itemAnalytics, itemCounters, itemIndex, itemSearchIndex));
+        ImageStore imageStore = new LocalImageStore(directory.resolve("images").toString(), "http://localhost:8080/images",
+                directory.resolve("objects").toString());
+        HistoryArchive archive = new HistoryArchive(imageStore, 0, 4, 60_000, executor);
+        itemService = new ItemServiceImpl(storage, itemCache, itemCounters, itemIndex, itemSearchIndex,
+                archive, itemAnalytics, executor, new ThreadingMetrics(false, new SimpleMeterRegistry()), 10_000);
+    }
+
+    @AfterEach
+    void tearDown() throws IOException {
+        executor.shutdown();
+        local.close();
+    }
+
+    @Test
+    void claimSendsOnlyTheStatusAndTheChangedFields() {
+        Items saved = itemService.saveItemAsync(item("Wallet")).join();
+        storage.updates.clear();
+
+        ClaimResult result = itemService.claimItemAsync(saved.getId(), Map.of("claimantName", "Ana")).join();
+
+        assertTrue(result.isClaimed());
+        assertEquals("Claimed", result.getItem().getStatus());
+        assertEquals(List.of("items/" + saved.getId() + "/status"), storage.transactions);
+        assertEquals(1, storage.updates.size());
+        assertEquals(List.of("claimedDate", "updatedAt", "claimantName"), new ArrayList<>(storage.updates.get(0).keySet()));
+        assertEquals("Ana", local.get("items/" + saved.getId() + "/claimantName", String.class).join());
+    }
+
+    @Test
+    void concurrentClaimsHaveExactlyOneWinner() {
+        Items saved = itemService.saveItemAsync(item("Phone")).join();
+
+        List<CompletableFuture<ClaimResult>> claims = new ArrayList<>();
+        for (int i = 0; i < 8; i++) {
+            String claimant = "Claimant " + i;
+            claims.add(CompletableFuture.supplyAsync(() -> claimant, executor)
+                    .thenCompose(name -> itemService.claimItemAsync(saved.getId(), Map.of("claimantName", name))));
+        }
+        List<ClaimResult> results = claims.stream().map(CompletableFuture::join).toList();
+
+        List<ClaimResult> winners = results.stream().filter(ClaimResult::isClaimed).toList();
+        assertEquals(1, winners.size());
+        // Losers are shown the item as the winner left it
+        String winner = winners.get(0).getItem().getClaimantName();
+        assertEquals(winner, local.get("items/" + saved.getId() + "/claimantName", String.class).join());
+    }
+
+    @Test
+    void claimOfAMissingItemFailsWithoutRecreatingIt() {
+        CompletionException error = assertThrows(CompletionException.class,
+                () -> itemService.claimItemAsync("gone", Map.of("claimantName", "Ana")).join());
+
+        assertInstanceOf(ItemNotFoundException.class, error.getCause());
+        assertNull(local.get("items/gone", Items.class).join());
+    }
+
+    @Test
+    void patchClaimsAnUnclaimedItem() {
+        Items saved = itemService.saveItemAsync(item("Keys")).join();
+
+        Items patched = itemService.patchItemAsync(saved.getId(), Map.of("claimantName", "Ana")).join();
+
+        assertEquals("Claimed", patched.getStatus());
+        assertEquals("Ana", patched.getClaimantName());
+    }
+
+    @Test
+    void patchEditsTheClaimOfAnAlreadyClaimedItem() {
+        Items saved = itemService.saveItemAsync(item("Umbrella")).join();
+        itemService.claimItemAsync(saved.getId(), Map.of("claimantName", "Ana")).join();
+        storage.updates.clear();
+
+        Items patched = itemService.patchItemAsync(saved.getId(), Map.of("staffInvolved", "Ben")).join();
+
+        assertEquals("Ben", patched.getStaffInvolved());
+        assertEquals("Ana", patched.getClaimantName());
+        assertEquals(List.of("staffInvolved", "updatedAt"), new ArrayList<>(storage.updates.get(0).keySet()));
+    }
+
+    @Test
+    void secondClaimIsRejected() {
+        Items saved = itemService.saveItemAsync(item("Bag")).join();
+        itemService.claimItemAsync(saved.getId(), Map.of("claimantName", "Ana")).join();
+
+        ClaimResult second = itemService.claimItemAsync(saved.getId(), Map.of("claimantName", "Ben")).join();
+
+        assertFalse(second.isClaimed());
+        assertEquals("Ana", second.getItem().getClaimantName());
+    }
+
+    @Test
+    void pagesThroughItemsWithKeysetCursors() {
+        List<String> ids = new ArrayList<>();
+        for (int i = 0; i < 5; i++) {
+            ids.add(itemService.saveItemAsync(item("Item " + i)).join().getId());
+        }
+
+        List<String> walked = new ArrayList<>();
+        List<String> cursors = new ArrayList<>();
+        String cursor = null;
+        do {
+            ItemPage page = itemService.getItemsPageAsync(cursor, 2).join();
+            page.getItems().forEach(item -> walked.add(item.getId()));
+            cursor = page.getNextCursor();
+            cursors.add(cursor);
+        } while (cursor != null);
+
+        assertEquals(ids.stream().sorted().toList(), walked);
+        // The cursor is the last key handed out; the final page has none
+        assertEquals(Arrays.asList(walked.get(1), walked.get(3), null), cursors);
+    }
+
+    @Test
+    void updateSendsOnlyTheFieldsThatChanged() {
+        Items saved = itemService.saveItemAsync(item("Wallet")).join();
+        storage.updates.clear();
+
+        itemService.updateItemAsync(saved.getId(), saved.toBuilder().location("Gym").build()).join();
+
+        assertEquals(Set.of("location", "updatedAt"), storage.updates.get(0).keySet());
+        assertEquals("Gym", local.get("items/" + saved.getId() + "/location", String.class).join());
+        assertEquals("Wallet", local.get("items/" + saved.getId() + "/item", String.class).join());
+    }
+
+    @Test
+    void turnoverUpdateWritesOnlyTheTurnoverFields() {
+        Items saved = itemService.saveItemAsync(item("Wallet")).join();
+        storage.updates.clear();
+
+        Items updated = itemService.updateTurnoverDetailsAsync(saved.getId(), "2025-06-01", "Ben", "Security").join();
+
+        assertEquals(Set.of("turnoverDate", "turnoverPerson", "department", "updatedAt"), storage.updates.get(0).keySet());
+        assertEquals("Wallet", updated.getItem());
+        assertEquals("Security", itemService.getItemByIdAsync(saved.getId()).join().getDepartment());
+    }
+
+    @Test
+    void filtersThroughTheIndexesAndTheDateRange() {
+        itemService.saveItemAsync(item("Wallet").toBuilder().dateFound("2025-06-01").build()).join();
+        Items phone = itemService.saveItemAsync(Items.builder().item("Phone").category("Electronics")
+                .location("Library").dateFound("2025-06-10").build()).join();
+        itemService.saveItemAsync(Items.builder().item("Tablet").category("Electronics")
+                .location("Library").dateFound("2025-05-01").build()).join();
+
+        ItemFilter filter = new ItemFilter();
+        filter.setCategory("electronics");
+        filter.setDateFrom("2025-06-01");
+
+        assertEquals(List.of(phone.getId()), itemService.findItemsAsync(filter).join().stream().map(Items::getId).toList());
+    }
+
+    @Test
+    void searchFindsItemsByNameAndLocation() {
+        Items phone = itemService.saveItemAsync(Items.builder().item("Black phone").location("Gym").build()).join();
+        itemService.saveItemAsync(item("Black wallet")).join();
+
+        assertEquals(List.of(phone.getId()), itemService.searchItemsAsync("black gym", 1).join().stream()
+                .map(Items::getId).toList());
+        assertEquals(2, itemService.searchItemsAsync("black", 10).join().size());
+    }
+
+    private static Items item(String name) {
+        return Items.builder().item(name).category("Accessories").location("Library").build();
+    }
+
+    // Passes everything through to the local store, noting the writes that would go over the wire
+    static final class RecordingStorage implements StorageBackend {
+        private final StorageBackend delegate;
+        final List<Map<String, Object>> updates = new CopyOnWriteArrayList<>();
+        final List<String> transactions = new CopyOnWriteArrayList<>();
+
+        RecordingStorage(StorageBackend delegate) {
+            this.delegate = delegate;
+        }
+
+        @Override
+        public String newKey(String node) {
+            return delegate.newKey(node);
+        }
+
+        @Override
+        public <T> CompletableFuture<T> get(String path, Class<T> type) {
+            return delegate.get(path, type);
+        }
+
+        @Override
+        public <T> CompletableFuture<Map<String, T>> getChildren(String node, Class<T> type) {
+            return delegate.getChildren(node, type);
+        }
+
+        @Override
+        public <T> CompletableFuture<Map<String, T>> getChildrenPage(String node, String afterKey, int limit, Class<T> type) {
+            return delegate.getChildrenPage(node, afterKey, limit, type);
+        }
+
+        @Override
+        public CompletableFuture<Void> set(String path, Object value) {
+            return delegate.set(path, value);
+        }
+
+        @Override
+        public CompletableFuture<Void> remove(String path) {
+            return delegate.remove(path);
+        }
+
+        @Override
+        public CompletableFuture<Void> update(String basePath, Map<String, Object> values) {
+            updates.add(values);
+            return delegate.update(basePath, values);
+        }
+
+        @Override
+        public <T> CompletableFuture<T> transaction(String path, Class<T> type, UnaryOperator<T> mutator) {
+            transactions.add(path);
+            return delegate.transaction(path, type, mutator);
+        }
+
+        @Override
+        public <T> void watch(String node, Class<T> type, ChildWatcher<T> watcher) {
+            delegate.watch(node, type, watcher);
+        }
+    }
+}
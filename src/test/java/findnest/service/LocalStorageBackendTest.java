@@ -0,0 +1,151 @@
+package findnest.service;
+
+import findnest.model.Items;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class LocalStorageBackendTest {
+
+    @TempDir
+    Path directory;
+
+    @Test
+    void replaysWritesAfterRestart() throws IOException {
+        try (LocalStorageBackend storage = open(1000)) {
+            storage.set("items/a", item("a", "Wallet")).join();
+            storage.set("items/b", item("b", "Phone")).join();
+            storage.update("items/a", Map.of("status", "Claimed")).join();
+            storage.remove("items/b").join();
+        }
+
+        try (LocalStorageBackend storage = open(1000)) {
+            Items a = storage.get("items/a", Items.class).join();
+            assertEquals("Wallet", a.getItem());
+            assertEquals("Claimed", a.getStatus());
+            assertNull(storage.get("items/b", Items.class).join());
+        }
+    }
+
+    @Test
+    void multiPathUpdateIsReplayedWhole() throws IOException {
+        try (LocalStorageBackend storage = open(1000)) {
+            storage.set("items/a", item("a", "Wallet")).join();
+            Map<String, Object> archive = new LinkedHashMap<>();
+            archive.put("ItemsHistory/h1", item("h1", "Wallet"));
+            archive.put("items/a", null);
+            storage.update("", archive).join();
+        }
+
+        try (LocalStorageBackend storage = open(1000)) {
+            assertNull(storage.get("items/a", Items.class).join());
+            assertEquals("Wallet", storage.get("ItemsHistory/h1", Items.class).join().getItem());
+        }
+    }
+
+    @Test
+    void ignoresEntryTornByACrashAndKeepsLaterWrites() throws IOException {
+        try (LocalStorageBackend storage = open(1000)) {
+            storage.set("items/a", item("a", "Wallet")).join();
+        }
+        // A crash part way through appending the next entry
+        Files.writeString(directory.resolve("changes.log"), "{\"updates\":{\"items/b\":{\"item\":\"Ph",
+                StandardCharsets.UTF_8, StandardOpenOption.APPEND);
+
+        try (LocalStorageBackend storage = open(1000)) {
+            assertEquals("Wallet", storage.get("items/a", Items.class).join().getItem());
+            assertNull(storage.get("items/b", Items.class).join());
+            storage.set("items/c", item("c", "Keys")).join();
+        }
+
+        // The write made after recovery must not have been appended to the torn line
+        try (LocalStorageBackend storage = open(1000)) {
+            assertEquals("Wallet", storage.get("items/a", Items.class).join().getItem());
+            assertEquals("Keys", storage.get("items/c", Items.class).join().getItem());
+        }
+    }
+
+    @Test
+    void compactsIntoSnapshotAtThreshold() throws IOException {
+        try (LocalStorageBackend storage = open(3)) {
+            for (int i = 0; i < 5; i++) {
+                storage.set("items/k" + i, item("k" + i, "Item " + i)).join();
+            }
+        }
+
+        assertTrue(Files.exists(directory.resolve("snapshot.json")));
+        assertEquals(2, nonBlankLines(directory.resolve("changes.log")));
+
+        try (LocalStorageBackend storage = open(3)) {
+            assertEquals(5, storage.getChildren("items", Items.class).join().size());
+            assertEquals("Item 4", storage.get("items/k4", Items.class).join().getItem());
+        }
+    }
+
+    @Test
+    void pagesChildrenInKeyOrder() throws IOException {
+        try (LocalStorageBackend storage = open(1000)) {
+            List<String> keys = new ArrayList<>();
+            for (int i = 0; i < 5; i++) {
+                String key = storage.newKey("items");
+                keys.add(key);
+                storage.set("items/" + key, item(key, "Item " + i)).join();
+            }
+
+            Map<String, Items> first = storage.getChildrenPage("items", null, 2, Items.class).join();
+            assertEquals(keys.subList(0, 2), new ArrayList<>(first.keySet()));
+            Map<String, Items> rest = storage.getChildrenPage("items", keys.get(1), 10, Items.class).join();
+            assertEquals(keys.subList(2, 5), new ArrayList<>(rest.keySet()));
+        }
+    }
+
+    @Test
+    void transactionWritesOnlyWhatTheMutatorReturns() throws IOException {
+        try (LocalStorageBackend storage = open(1000)) {
+            storage.set("items/a", item("a", "Wallet")).join();
+
+            Items claimed = storage.transaction("items/a", Items.class,
+                    current -> "Available".equals(current.getStatus()) ? current.toBuilder().status("Claimed").build() : null).join();
+            assertEquals("Claimed", claimed.getStatus());
+            Items again = storage.transaction("items/a", Items.class,
+                    current -> "Available".equals(current.getStatus()) ? current.toBuilder().status("Claimed").build() : null).join();
+            assertNull(again);
+            assertEquals("Claimed", storage.get("items/a/status", String.class).join());
+        }
+    }
+
+    @Test
+    void transactionNeverRecreatesAMissingNode() throws IOException {
+        try (LocalStorageBackend storage = open(1000)) {
+            assertNull(storage.transaction("items/gone", Items.class, current -> current.toBuilder().status("Claimed").build()).join());
+            assertNull(storage.get("items/gone", Items.class).join());
+            assertTrue(storage.getChildren("items", Items.class).join().isEmpty());
+        }
+    }
+
+    private LocalStorageBackend open(int compactionThreshold) throws IOException {
+        return new LocalStorageBackend(directory.toString(), compactionThreshold);
+    }
+
+    private static Items item(String id, String name) {
+        return Items.builder().id(id).item(name).status("Available").build();
+    }
+
+    private static long nonBlankLines(Path file) throws IOException {
+        return Files.readAllLines(file, StandardCharsets.UTF_8).stream().filter(line -> !line.isBlank()).count();
+    }
+}
@@ -0,0 +1,105 @@
+package findnest.service;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import findnest.model.AuthStats;
+import findnest.model.VerifiedToken;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.security.KeyPair;
+import java.security.KeyPairGenerator;
+import java.security.Signature;
+import java.security.interfaces.RSAPublicKey;
+import java.time.Instant;
+import java.util.Base64;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+class TokenVerifierTest {
+
+    private static final String PROJECT = "findnest-test";
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+
+    @TempDir
+    Path directory;
+
+    private KeyPair keyPair;
+    private TokenVerifier verifier;
+
+    @BeforeEach
+    void setUp() throws Exception {
+        KeyPairGenerator generator = KeyPairGenerator.getInstance("RSA");
+        generator.initialize(2048);
+        keyPair = generator.generateKeyPair();
+        RSAPublicKey publicKey = (RSAPublicKey) keyPair.getPublic();
+        Map<String, Object> jwk = Map.of("kty", "RSA", "kid", "k1",
+                "n", base64(publicKey.getModulus().toByteArray()), "e", base64(publicKey.getPublicExponent().toByteArray()));
+        Path keysFile = directory.resolve("keys.json");
+        Files.writeString(keysFile, objectMapper.writeValueAsString(Map.of("keys", List.of(jwk))));
+        verifier = new TokenVerifier(Optional.of(new TokenKeySet(keysFile.toString(), "")), PROJECT, 100);
+    }
+
+    @Test
+    void verifiesOnceAndServesRepeatsFromTheCache() throws Exception {
+        String token = sign(claims(PROJECT, Instant.now().plusSeconds(3600)));
+
+        VerifiedToken first = verifier.verify(token);
+        VerifiedToken second = verifier.verify(token);
+
+        assertEquals("user-1", first.getUid());
+        assertEquals(first, second);
+        AuthStats stats = verifier.getStats();
+        assertEquals(1, stats.getCacheHits());
+        assertEquals(1, stats.getCacheMisses());
+        assertEquals(1, stats.getCachedTokens());
+    }
+
+    @Test
+    void rejectsTokensForAnotherProjectOrPastExpiry() throws Exception {
+        String otherProject = sign(claims("someone-else", Instant.now().plusSeconds(3600)));
+        String expired = sign(claims(PROJECT, Instant.now().minusSeconds(3600)));
+
+        assertThrows(TokenVerificationException.class, () -> verifier.verify(otherProject));
+        assertThrows(TokenVerificationException.class, () -> verifier.verify(expired));
+        assertThrows(TokenVerificationException.class, () -> verifier.verify("not-a-token"));
+        assertEquals(3, verifier.getStats().getVerificationFailures());
+    }
+
+    @Test
+    void firebaseVerificationWithoutAnAppIsAFailureNotACrash() {
+        TokenVerifier firebase = new TokenVerifier(Optional.empty(), "", 100);
+
+        assertThrows(TokenVerificationException.class, () -> firebase.verify("any-token"));
+        assertEquals(1, firebase.getStats().getVerificationFailures());
+    }
+
+    private Map<String, Object> claims(String audience, Instant expiresAt) {
+        long issuedAt = Math.min(Instant.now().getEpochSecond(), expiresAt.getEpochSecond() - 60);
+        return Map.of("sub", "user-1", "email", "user@example.com", "aud", audience,
+                "iss", "https://securetoken.google.com/" + audience,
+                "iat", issuedAt, "exp", expiresAt.getEpochSecond());
+    }
+
+    private String sign(Map<String, Object> claims) throws Exception {
+        String header = base64(objectMapper.writeValueAsBytes(Map.of("alg", "RS256", "kid", "k1")));
+        String payload = base64(objectMapper.writeValueAsBytes(claims));
+        Signature signature = Signature.getInstance("SHA256withRSA");
+        signature.initSign(keyPair.getPrivate());
+        signature.update((header + "." + payload).getBytes(StandardCharsets.US_ASCII));
+        return header + "." + payload + "." + base64(signature.sign());
+    }
+
+    private static String base64(byte[] bytes) {
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(bytes);
+    }
+}
@@ -0,0 +1,59 @@
+package findnest.service;
+
+import findnest.model.User;
+import findnest.model.UserCacheStats;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+
+class UserCacheTest {
+
+    @Test
+    void evictsTheLeastRecentlyUsedUser() {
+        UserCache cache = new UserCache(2, 60_000);
+        User ana = user("Ana");
+        cache.put("u1", ana);
+        cache.put("u2", user("Ben"));
+        // Reading u1 makes u2 the eldest
+        assertSame(ana, cache.get("u1"));
+        cache.put("u3", user("Cy"));
+
+        assertNull(cache.get("u2"));
+        assertSame(ana, cache.get("u1"));
+        UserCacheStats stats = cache.getStats();
+        assertEquals(2, stats.getSize());
+        assertEquals(1, stats.getEvictions());
+        assertEquals(2, stats.getHits());
+        assertEquals(1, stats.getMisses());
+    }
+
+    @Test
+    void expiresEntriesAfterTheirTtl() throws InterruptedException {
+        UserCache cache = new UserCache(10, 20);
+        cache.put("u1", user("Ana"));
+        Thread.sleep(40);
+
+        assertNull(cache.get("u1"));
+        assertEquals(1, cache.getStats().getExpirations());
+    }
+
+    @Test
+    void invalidationDropsTheEntry() {
+        UserCache cache = new UserCache(10, 60_000);
+        cache.put("u1", user("Ana"));
+        cache.invalidate("u1");
+        cache.invalidate("u2");
+
+        assertNull(cache.get("u1"));
+        assertEquals(1, cache.getStats().getInvalidations());
+    }
+
+    private static User user(String firstName) {
+        User user = new User();
+        user.setFirstName(firstName);
+        return user;
+    }
+}
@@ -0,0 +1,58 @@
+package findnest.service;
+
+import findnest.model.User;
+import findnest.model.UserCounts;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class UserCountersTest {
+
+    private final UserCounters counters = new UserCounters();
+
+    @Test
+    void movesAUserBetweenRolesWhenItChanges() {
+        counters.put("u1", user("Staff", "Library"));
+        counters.put("u2", user("Staff", "Security"));
+        counters.put("u1", user("Admin", "Library"));
+        counters.remove("u2");
+
+        UserCounts counts = counters.getCounts();
+        assertEquals(1L, counts.getTotalCount());
+        assertEquals(Map.of("Admin", 1L), counts.getRoleCounts());
+        assertEquals(Map.of("Library", 1L), counts.getDepartmentCounts());
+    }
+
+    @Test
+    void reconcileKeepsUsersWrittenWhileTheSnapshotWasRead() {
+        counters.put("u1", user("Staff", "Library"));
+        counters.put("u2", user("Staff", "Library"));
+        assertFalse(counters.isLoaded());
+
+        UserCounters.Reload reload = counters.beginReload();
+        // Snapshot as read from the database before the writes below landed
+        Map<String, User> snapshot = Map.of("u1", user("Staff", "Library"), "u2", user("Staff", "Library"),
+                "u3", user("Staff", "Security"));
+        counters.put("u1", user("Admin", "Library"));
+        counters.remove("u2");
+        counters.reset(reload, snapshot);
+
+        assertTrue(counters.isLoaded());
+        UserCounts counts = counters.getCounts();
+        assertEquals(2L, counts.getTotalCount());
+        assertEquals(Map.of("Admin", 1L, "Staff", 1L), counts.getRoleCounts());
+        assertEquals(Map.of("Library", 1L, "Security", 1L), counts.getDepartmentCounts());
+    }
+
+    private static User user(String role, String department) {
+        User user = new User();
+        user.setRole(role);
+        user.setDepartment(department);
+        return user;
+    }
+}